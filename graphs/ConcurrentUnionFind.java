@@ -0,0 +1,108 @@
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.IntStream;
+
+// lock-free union-find for concurrent edge ingestion
+// a root is linked below another root with a single compare-and-set, so threads never block;
+// instead of ranks, which cannot be updated together with the link, roots are ordered by a
+// fixed pseudo-random priority (randomized linking), and find() halves paths with
+// compare-and-set so that concurrent compressions never lose a link
+public class ConcurrentUnionFind {
+
+    private final AtomicIntegerArray id;   // id[v] = parent of v, or v itself if v is a root
+    private final AtomicInteger count;     // number of sets
+
+    ConcurrentUnionFind(int N) {
+        id = new AtomicIntegerArray(N);
+        for (int v = 0; v < N; v++) {
+            id.set(v, v);
+        }
+        count = new AtomicInteger(N);
+    }
+
+    // pseudo-random priority of v; a root is always linked below a root of higher priority
+    private static int priority(int v) {
+        int h = v * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static boolean below(int i, int j) {
+        int p = priority(i);
+        int q = priority(j);
+        return p < q || (p == q && i < j);
+    }
+
+    // root of the set that contains v
+    public int find(int v) {
+        while (true) {
+            int p = id.get(v);
+            if (p == v) {
+                return v;
+            }
+            int g = id.get(p);
+            if (g != p) {
+                id.compareAndSet(v, p, g);  // path halving; failure only means someone else helped
+            }
+            v = g;
+        }
+    }
+
+    // merge the sets that contain v and w; return false if they were already merged
+    public boolean union(int v, int w) {
+        while (true) {
+            int i = find(v);
+            int j = find(w);
+            if (i == j) {
+                return false;
+            }
+            if (below(j, i)) {
+                int t = i;
+                i = j;
+                j = t;
+            }
+            if (id.compareAndSet(i, i, j)) {    // i is still a root: link it below j
+                count.decrementAndGet();
+                return true;
+            }
+        }
+    }
+
+    // test if v and w are in the same set; exact once no union() is in progress
+    public boolean connected(int v, int w) {
+        while (true) {
+            int i = find(v);
+            int j = find(w);
+            if (i == j) {
+                return true;
+            }
+            if (id.get(i) == i) {   // i was still a root after j was found, so they were apart
+                return false;
+            }
+        }
+    }
+
+    // number of sets
+    public int count() {
+        return count.get();
+    }
+
+    public static void main(String[] args) {
+        In.init();
+        int N = In.getInt();
+        int M = In.getInt();
+        int[] from = new int[M];
+        int[] to = new int[M];
+        for (int i = 0; i < M; i++) {
+            from[i] = In.getInt();
+            to[i] = In.getInt();
+        }
+
+        long startTime = System.currentTimeMillis();
+        ConcurrentUnionFind uf = new ConcurrentUnionFind(N);
+        IntStream.range(0, M).parallel().forEach(i -> uf.union(from[i], to[i]));
+        long endTime = System.currentTimeMillis();
+        System.out.println("Number of connected components = " + uf.count());
+        System.out.println("connected " + 0 + " and " + (N-1) + "? " + uf.connected(0, N-1));
+        System.out.println("total time = " + (endTime - startTime));
+    }
+}
@@ -3,24 +3,62 @@
 // Chatzidimitriou Charilaos A.M.: 5387
 // Chatziiordanis Omiros A.M.: 5388
 import java.io.* ;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Iterator;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 public class Graph {
 
+    // BFS modes used by components()
+    public static final int TOP_DOWN = 0;               // classic queue-based BFS
+    public static final int DIRECTION_OPTIMIZING = 1;   // switches to bottom-up steps on large frontiers
+    public static final int PARALLEL = 2;               // level-synchronous BFS on a fork/join pool
+
+    private static final int ALPHA = 14;    // go bottom-up when frontier edges > unexplored edges / ALPHA
+    private static final int BETA = 24;     // go back top-down when frontier size < N / BETA
+
+    private static final int GRAIN = 1024;  // frontier vertices expanded by one parallel task
+
+    private static final int[] EMPTY = new int[0];
+
+    // atomic access to the elements of marked[], used to claim vertices in the parallel BFS
+    private static final VarHandle MARKED = MethodHandles.arrayElementVarHandle(boolean[].class);
+
     private final int N;                // number of vertices
     private int M;                      // number of edges
-    private Collection<Integer>[] adj;  // adjacency lists
+    private int[][] adj;                // adjacency arrays; adj[v][0..degree[v]-1] are the neighbors of v
+    private int[] degree;               // number of neighbors of each vertex
     private boolean[] marked;           // visited by BFS?
     private int parent[];               // parents in BFS forest
+    private int[] depth;                // depth[v] = distance from v to the root of its BFS tree
+    private int[] comp;                 // comp[v] = index of the connected component of v
+    private boolean labeled;            // comp[] is up to date: components() ran and no edge was added since
+    private final UnionFind uf;         // connectivity index, kept up to date by addEdge
+    private final IntQueue Q;           // BFS queue, reused by every BFS call
+    private int mode = TOP_DOWN;        // BFS mode used by components()
+    private int[] frontier, next;       // current and next level of a direction-optimizing BFS
+    private long[] inFrontier;          // bitmap of the current level, used by bottom-up steps
+    private int[][] found;              // found[c] = vertices discovered by parallel task c
+    private int[] foundSize;            // foundSize[c] = number of such vertices
+    private ForkJoinPool pool = ForkJoinPool.commonPool();  // pool of the parallel BFS
     
     public Graph(int N) {
         this.N = N;
         this.M = 0;
-        adj = (Collection<Integer>[]) new Collection[N];   // array of references to collections
+        adj = new int[N][];
         for (int i = 0; i < N; i++) {
-            adj[i] = new Collection<Integer>();   // initialize collections to be empty
+            adj[i] = EMPTY;     // arrays are allocated on the first edge of each vertex
         }
+        degree = new int[N];
         marked = new boolean[N];
         parent = new int[N];
+        depth = new int[N];
+        comp = new int[N];
+        Q = new IntQueue();
+        uf = new UnionFind(N);
         
         for (int i = 0; i < N; i++) {
             marked[i] = false;
@@ -42,14 +80,61 @@ public class Graph {
 
     // add edge {v,w}
     public void addEdge(int v, int w) {
-        adj[v].insert(w);
-        adj[w].insert(v);
+        add(v, w);
+        add(w, v);
+        uf.union(v, w);
+        labeled = false;
         M++;
     }
 
+    // append w to the adjacency array of v, doubling it when full
+    private void add(int v, int w) {
+        if (degree[v] == adj[v].length) {
+            int[] a = new int[Math.max(4, 2 * degree[v])];
+            System.arraycopy(adj[v], 0, a, 0, degree[v]);
+            adj[v] = a;
+        }
+        adj[v][degree[v]++] = w;
+    }
+
+    // number of neighbors of vertex v
+    public int degree(int v) {
+        return degree[v];
+    }
+
+    // i-th neighbor of vertex v, 0 <= i < degree(v); allocation-free alternative to adj(v)
+    public int neighbor(int v, int i) {
+        return adj[v][i];
+    }
+
     // neighbors of vertex v
     public Iterable<Integer> adj(int v) {
-        return adj[v];
+        return new Iterable<Integer>() {
+            public Iterator<Integer> iterator() {
+                return new Iterator<Integer>() {
+                    private int i = 0;
+
+                    public boolean hasNext() {
+                        return i < degree[v];
+                    }
+
+                    public Integer next() {
+                        return adj[v][i++];
+                    }
+                };
+            }
+        };
+    }
+
+    // shrink every adjacency array to its degree, e.g. after loading a graph
+    public void trim() {
+        for (int v = 0; v < N; v++) {
+            if (degree[v] < adj[v].length) {
+                int[] a = new int[degree[v]];
+                System.arraycopy(adj[v], 0, a, 0, degree[v]);
+                adj[v] = a;
+            }
+        }
     }
 
     public void printGraph() {
@@ -65,47 +150,249 @@ public class Graph {
 
     // execute BFS from v and store the corresponding BFS tree
     void BFS(int v){
-        Queue<Integer> Q = new Queue<>();
+        Q.clear();
         marked[v] = true;
         Q.enqueue(v);
         while (!Q.isEmpty())
         {
             int k = Q.dequeue();
-            for ( int i : adj(k) ) {
+            int[] a = adj[k];
+            for (int j = 0; j < degree[k]; j++) {
+                int i = a[j];
                 if (marked[i] == false) {
                     marked[i] = true;
                     parent[i] = k;
+                    depth[i] = depth[k] + 1;
+                    comp[i] = comp[k];
                     Q.enqueue(i);
                 }
             }
         }
     }
 
+    // execute a direction-optimizing BFS from v and store the corresponding BFS tree
+    // each level is expanded top-down (frontier vertices check their neighbors) while the
+    // frontier is small, and bottom-up (unvisited vertices look for a parent in the frontier)
+    // while it is large, so that levels of a low-diameter graph touch far fewer edges
+    void BFSDirectionOptimizing(int v) {
+        if (frontier == null) {
+            frontier = new int[N];
+            next = new int[N];
+        }
+        if (inFrontier == null) {
+            inFrontier = new long[(N + 63) >>> 6];
+        }
+        marked[v] = true;
+        frontier[0] = v;
+        int size = 1;                       // number of vertices in the frontier
+        long frontierEdges = degree[v];     // edges to check from the frontier
+        long unexplored = 2L * M - degree[v];   // upper bound on edges to check from unvisited vertices
+        boolean bottomUp = false;
+        while (size > 0) {
+            if (!bottomUp && frontierEdges > unexplored / ALPHA) {
+                bottomUp = true;
+            } else if (bottomUp && size < N / BETA) {
+                bottomUp = false;
+            }
+            int nextSize = 0;
+            long nextEdges = 0;
+            if (bottomUp) {
+                for (int j = 0; j < size; j++) {
+                    inFrontier[frontier[j] >>> 6] |= 1L << frontier[j];
+                }
+                for (int u = 0; u < N; u++) {
+                    if (marked[u]) {
+                        continue;
+                    }
+                    int[] a = adj[u];
+                    for (int j = 0; j < degree[u]; j++) {
+                        int k = a[j];
+                        if ((inFrontier[k >>> 6] & (1L << k)) != 0) {
+                            marked[u] = true;
+                            parent[u] = k;
+                            depth[u] = depth[k] + 1;
+                            comp[u] = comp[k];
+                            next[nextSize++] = u;
+                            nextEdges += degree[u];
+                            break;
+                        }
+                    }
+                }
+                for (int j = 0; j < size; j++) {
+                    inFrontier[frontier[j] >>> 6] = 0;
+                }
+            } else {
+                for (int j = 0; j < size; j++) {
+                    int k = frontier[j];
+                    int[] a = adj[k];
+                    for (int t = 0; t < degree[k]; t++) {
+                        int i = a[t];
+                        if (!marked[i]) {
+                            marked[i] = true;
+                            parent[i] = k;
+                            depth[i] = depth[k] + 1;
+                            comp[i] = comp[k];
+                            next[nextSize++] = i;
+                            nextEdges += degree[i];
+                        }
+                    }
+                }
+            }
+            int[] temp = frontier;
+            frontier = next;
+            next = temp;
+            size = nextSize;
+            frontierEdges = nextEdges;
+            unexplored -= nextEdges;
+        }
+    }
+
+    // execute a level-synchronous parallel BFS from v and store the corresponding BFS tree
+    // every level is split into chunks of GRAIN frontier vertices that are expanded by
+    // separate fork/join tasks; a vertex is claimed by whichever task first sets its marked[]
+    // entry with a compare-and-set, and that task's frontier vertex becomes its parent.
+    // which task wins is a race, so the parents may differ from run to run and from those
+    // of the sequential BFS; the marked vertices, depths and components are always the same
+    void BFSParallel(int v) {
+        if (frontier == null) {
+            frontier = new int[N];
+            next = new int[N];
+        }
+        marked[v] = true;
+        frontier[0] = v;
+        int size = 1;
+        while (size > 0) {
+            int chunks = (size + GRAIN - 1) / GRAIN;
+            if (found == null || found.length < chunks) {
+                int[][] f = new int[Math.max(chunks, 2 * (found == null ? 0 : found.length))][];
+                if (found != null) {
+                    System.arraycopy(found, 0, f, 0, found.length);
+                }
+                found = f;
+                foundSize = new int[f.length];
+            }
+            if (chunks == 1) {
+                expand(0, size);    // small levels are not worth forking
+            } else {
+                pool.invoke(new Expand(0, size));
+            }
+            // concatenate the vertices found by each chunk into the next level
+            int nextSize = 0;
+            for (int c = 0; c < chunks; c++) {
+                System.arraycopy(found[c], 0, next, nextSize, foundSize[c]);
+                nextSize += foundSize[c];
+            }
+            int[] temp = frontier;
+            frontier = next;
+            next = temp;
+            size = nextSize;
+        }
+    }
+
+    // expand frontier[lo..hi-1], which is chunk lo / GRAIN of the current level
+    private void expand(int lo, int hi) {
+        int c = lo / GRAIN;
+        int[] out = found[c];
+        if (out == null) {
+            out = new int[GRAIN];
+        }
+        int n = 0;
+        for (int j = lo; j < hi; j++) {
+            int k = frontier[j];
+            int[] a = adj[k];
+            for (int t = 0; t < degree[k]; t++) {
+                int i = a[t];
+                if (!marked[i] && MARKED.compareAndSet(marked, i, false, true)) {
+                    parent[i] = k;
+                    depth[i] = depth[k] + 1;
+                    comp[i] = comp[k];
+                    if (n == out.length) {
+                        int[] o = new int[2 * n];
+                        System.arraycopy(out, 0, o, 0, n);
+                        out = o;
+                    }
+                    out[n++] = i;
+                }
+            }
+        }
+        found[c] = out;
+        foundSize[c] = n;
+    }
+
+    // fork/join task expanding frontier[lo..hi-1]; lo is always a multiple of GRAIN
+    private class Expand extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final int lo, hi;
+
+        Expand(int lo, int hi) {
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        protected void compute() {
+            if (hi - lo <= GRAIN) {
+                expand(lo, hi);
+                return;
+            }
+            int chunks = (hi - lo + GRAIN - 1) / GRAIN;
+            int mid = lo + (chunks / 2) * GRAIN;
+            invokeAll(new Expand(lo, mid), new Expand(mid, hi));
+        }
+    }
+
+    // select the BFS used by components(): TOP_DOWN, DIRECTION_OPTIMIZING or PARALLEL
+    public void setMode(int mode) {
+        this.mode = mode;
+    }
+
+    // run the parallel BFS on the given pool instead of the common pool
+    public void setPool(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
     // compute the connected components using BFS and store the corresponding BFS forest 
+    // if an edge was added since the last call, the old forest is thrown away and rebuilt
     public int components(){
+        if (!labeled) {
+            for (int i = 0; i < N; i++) {
+                marked[i] = false;
+                parent[i] = -1;
+            }
+        }
 		int count = 0;
         for (int i = 0; i < N; i++) {
             if (!marked[i]) {
-                BFS(i);
+                depth[i] = 0;
+                comp[i] = count;    // i is the root of the next BFS tree
+                if (mode == DIRECTION_OPTIMIZING) {
+                    BFSDirectionOptimizing(i);
+                } else if (mode == PARALLEL) {
+                    BFSParallel(i);
+                } else {
+                    BFS(i);
+                }
             }
             if (parent[i] == -1) {
                 count ++;
             }
         }
+        labeled = true;
         return count;  
     }
     
     // test if s and t are in the same connected component
+    // after components() this compares the component labels; otherwise it is answered by
+    // the union-find index, so it needs no BFS and sees every added edge
     public boolean connected(int s, int t) {
-        int i = s;
-        while (parent[i] != -1) {
-            i = parent[i];
+        if (labeled) {
+            return comp[s] == comp[t];
         }
-        int j = t;
-        while (parent[j] != -1) {
-            j = parent[j];
-        }
-        return j == i;
+        return uf.connected(s, t);
+    }
+
+    // number of connected components, without running a BFS
+    public int componentCount() {
+        return uf.count();
     }
     
     public void printParent()
@@ -119,48 +406,101 @@ public class Graph {
     }
     
     // return the path from v to w in the BFS tree that contains both vertices
-    // return null if v and w are in different connected components 
-    Queue<Integer> treePath(int v, int w) {
-        Queue<Integer> leftQueue = new Queue<>();
-        Queue<Integer> rightQueue = new Queue<>();
-		boolean[] markedPath = new boolean[N];     //This says if a node has been inserted in the path
-		boolean check = false;                    //This says if the nodes are actually connected
-		int i = v;
-		while(i != -1){
-			leftQueue.enqueue(i);
-			markedPath[i] = true;
-			i = parent[i];
-		}
-		
-		int j = w;
-		while(j != -1 ){
-			if(markedPath[j] == true){
-				check = true;
-				break;
-			}
-			rightQueue.enqueue(j);
-			j = parent[j];
-		}
-		
-		if (check == true){
-			int temp = leftQueue.dequeueTail();
-			while(temp != j){
-				if (leftQueue.isEmpty()){
-					break;
-				}
-				temp = leftQueue.dequeueTail();
-			}
-			leftQueue.enqueue(j);
-			while (!rightQueue.isEmpty()){
-				leftQueue.enqueue(rightQueue.dequeueTail());
-			}
-			return leftQueue;
-		}
-		
-		return new Queue<>();
+    // return an empty queue if v and w are in different connected components
+    IntQueue treePath(int v, int w) {
+        int[] path = path(v, w);
+        IntQueue Q = new IntQueue(path.length);
+        for (int x : path) {
+            Q.enqueue(x);
+        }
+        return Q;
+    }
+
+    // lowest common ancestor of v and w in the BFS forest, or -1 if they are in different trees
+    // the deeper vertex climbs to the depth of the other one, then both climb in lockstep
+    private int ancestor(int v, int w) {
+        if (labeled && comp[v] != comp[w]) {
+            return -1;
+        }
+        while (depth[v] > depth[w]) {
+            v = parent[v];
+        }
+        while (depth[w] > depth[v]) {
+            w = parent[w];
+        }
+        while (v != w) {
+            if (parent[v] == -1) {  // two different roots
+                return -1;
+            }
+            v = parent[v];
+            w = parent[w];
+        }
+        return v;
+    }
+
+    // path from v to w in the BFS forest as an array, empty if there is none;
+    // its length is known from the depths, so it is filled in place from both ends
+    private int[] path(int v, int w) {
+        int a = ancestor(v, w);
+        if (a == -1) {
+            return EMPTY;
+        }
+        int[] path = new int[depth[v] + depth[w] - 2 * depth[a] + 1];
+        int i = 0;
+        for (int x = v; x != a; x = parent[x]) {
+            path[i++] = x;
+        }
+        path[i] = a;
+        i = path.length - 1;
+        for (int x = w; x != a; x = parent[x]) {
+            path[i--] = x;
+        }
+        return path;
+    }
+
+    // answer many path queries at once: paths[q] is the path from vs[q] to ws[q] in the
+    // BFS forest (empty if there is none); no per-query scratch is allocated, only the
+    // returned arrays, and with parallel = true the queries are split across the pool
+    public int[][] treePaths(int[] vs, int[] ws, boolean parallel) {
+        int[][] paths = new int[vs.length][];
+        if (parallel && vs.length > GRAIN) {
+            pool.invoke(new PathQueries(vs, ws, paths, 0, vs.length));
+        } else {
+            for (int q = 0; q < vs.length; q++) {
+                paths[q] = path(vs[q], ws[q]);
+            }
+        }
+        return paths;
+    }
+
+    // fork/join task answering path queries lo..hi-1
+    private class PathQueries extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final int[] vs, ws;
+        private final int[][] paths;
+        private final int lo, hi;
+
+        PathQueries(int[] vs, int[] ws, int[][] paths, int lo, int hi) {
+            this.vs = vs;
+            this.ws = ws;
+            this.paths = paths;
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        protected void compute() {
+            if (hi - lo <= GRAIN) {
+                for (int q = lo; q < hi; q++) {
+                    paths[q] = path(vs[q], ws[q]);
+                }
+                return;
+            }
+            int mid = (lo + hi) >>> 1;
+            invokeAll(new PathQueries(vs, ws, paths, lo, mid), new PathQueries(vs, ws, paths, mid, hi));
+        }
     }
     
-    public void printQueue(Queue<Integer> Q)
+    public void printQueue(IntQueue Q)
     {
 		if(Q.isEmpty()){
 			System.out.println("No path");
@@ -173,18 +513,40 @@ public class Graph {
 		}
     }
         
-    public static void main(String[] args) {
-        In.init();
-        int N = In.getInt();
-        Graph G = new Graph(N);
-        int M = In.getInt();
-        for (int i = 0; i < M; i++) {
-            int v = In.getInt();
-            int w = In.getInt();
-            G.addEdge(v, w);
+    // usage: java Graph [-do|-par] < graph.txt   or   java Graph [-do|-par] graph.bin (see GraphFile)
+    // -do selects the direction-optimizing BFS, -par the parallel BFS
+    public static void main(String[] args) throws IOException {
+        int mode = TOP_DOWN;
+        String binaryFile = null;
+        for (String arg : args) {
+            if (arg.equals("-do")) {
+                mode = DIRECTION_OPTIMIZING;
+            } else if (arg.equals("-par")) {
+                mode = PARALLEL;
+            } else {
+                binaryFile = arg;
+            }
         }
+
+        Graph G;
+        if (binaryFile != null) {
+            G = GraphFile.load(binaryFile);
+        } else {
+            In.init();
+            int N = In.getInt();
+            G = new Graph(N);
+            int M = In.getInt();
+            for (int i = 0; i < M; i++) {
+                int v = In.getInt();
+                int w = In.getInt();
+                G.addEdge(v, w);
+            }
+            G.trim();
+        }
+        int N = G.nodes();
         //G.printGraph();
 
+        G.setMode(mode);
         long startTime = System.currentTimeMillis();
         int cc = G.components();
         System.out.println("Number of connected components = " + cc);
@@ -206,5 +568,34 @@ public class Graph {
         long endTime = System.currentTimeMillis();
         long totalTime = endTime - startTime;
         System.out.println("total time = " + totalTime);
+
+        // batch of random path queries
+        int Q = 100000;
+        Random rand = new Random(0);
+        int[] vs = new int[Q];
+        int[] ws = new int[Q];
+        for (int q = 0; q < Q; q++) {
+            vs[q] = rand.nextInt(N);
+            ws[q] = rand.nextInt(N);
+        }
+        startTime = System.currentTimeMillis();
+        int[][] paths = G.treePaths(vs, ws, mode == PARALLEL);
+        endTime = System.currentTimeMillis();
+        long length = 0;
+        for (int[] path : paths) {
+            length += path.length;
+        }
+        System.out.println(Q + " path queries, total path length = " + length + ", time = " + (endTime - startTime));
+
+        // regression check: an edge that joins two labelled components must be seen by
+        // the next components(), connected() and treePath()
+        Graph H = new Graph(4);
+        H.setMode(mode);
+        H.addEdge(0, 1);
+        H.addEdge(2, 3);
+        boolean ok = H.components() == 2 && !H.connected(0, 3);
+        H.addEdge(1, 2);
+        ok &= H.components() == 1 && H.connected(0, 3) && H.path(0, 3).length == 4;
+        System.out.println("components after adding an edge: " + (ok ? "ok" : "FAILED"));
     }
 }
@@ -0,0 +1,107 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+// binary file format for undirected graphs
+//
+// header : magic, number of vertices, number of edges, unused (4 ints)
+// edges  : one record per edge {v,w}: int v, int w
+//
+// all values are little-endian; the number of vertices is large enough to
+// hold every endpoint, so the file can be loaded without knowing the numbering
+public class GraphFile {
+
+    private static final int MAGIC = 0x55475231;       // "UGR1"
+    private static final int HEADER_SIZE = 16;         // bytes
+    private static final int RECORD_SIZE = 8;          // bytes per edge
+    private static final int WINDOW = 1 << 27;         // edges per mapped window (1 GB)
+
+    private GraphFile() { }
+
+    // convert a text graph (N, M, then M lines "v w") into the binary format
+    public static void convert(String textFile, String binaryFile) throws IOException {
+        In.init(textFile);
+        try (FileChannel out = FileChannel.open(Paths.get(binaryFile), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            int N = In.getInt();
+            int M = In.getInt();
+            ByteBuffer buffer = ByteBuffer.allocateDirect(RECORD_SIZE * 65536).order(ByteOrder.LITTLE_ENDIAN);
+            out.position(HEADER_SIZE);
+            int nodes = N;
+            for (int i = 0; i < M; i++) {
+                int v = In.getInt();
+                int w = In.getInt();
+                nodes = Math.max(nodes, Math.max(v, w) + 1);
+                if (buffer.remaining() < RECORD_SIZE) {
+                    flush(out, buffer);
+                }
+                buffer.putInt(v).putInt(w);
+            }
+            flush(out, buffer);
+
+            buffer.putInt(MAGIC).putInt(nodes).putInt(M).putInt(0);
+            buffer.flip();
+            out.write(buffer, 0);
+        } finally {
+            In.close();
+        }
+    }
+
+    private static void flush(FileChannel out, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    // map the binary file into memory and build the graph it describes
+    public static Graph load(String binaryFile) throws IOException {
+        try (FileChannel in = FileChannel.open(Paths.get(binaryFile), StandardOpenOption.READ)) {
+            ByteBuffer header = in.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt() != MAGIC) {
+                throw new IllegalArgumentException(binaryFile + " is not a binary graph file");
+            }
+            int N = header.getInt();
+            int M = header.getInt();
+            if (in.size() < HEADER_SIZE + (long) M * RECORD_SIZE) {
+                throw new IllegalArgumentException(binaryFile + " is truncated");
+            }
+
+            Graph G = new Graph(N);
+            long position = HEADER_SIZE;
+            // a single mapping is limited to 2 GB, so large files are read window by window
+            for (int first = 0; first < M; first += WINDOW) {
+                int count = Math.min(WINDOW, M - first);
+                MappedByteBuffer edges = in.map(FileChannel.MapMode.READ_ONLY, position, (long) count * RECORD_SIZE);
+                edges.order(ByteOrder.LITTLE_ENDIAN);
+                for (int i = 0; i < count; i++) {
+                    int v = edges.getInt();
+                    int w = edges.getInt();
+                    G.addEdge(v, w);
+                }
+                position += (long) count * RECORD_SIZE;
+            }
+            G.trim();
+            return G;
+        }
+    }
+
+    // usage: java GraphFile input.txt output.bin
+    public static void main(String[] args) throws IOException {
+        long startTime = System.currentTimeMillis();
+        convert(args[0], args[1]);
+        long endTime = System.currentTimeMillis();
+        System.out.println("conversion time = " + (endTime - startTime));
+
+        startTime = System.currentTimeMillis();
+        Graph G = load(args[1]);
+        endTime = System.currentTimeMillis();
+        System.out.println("load time = " + (endTime - startTime));
+        System.out.println("vertices = " + G.nodes() + ", edges = " + G.edges());
+    }
+}
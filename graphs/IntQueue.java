@@ -0,0 +1,77 @@
+// FIFO queue of ints stored in a circular array; the array doubles when full,
+// so a queue that is cleared and reused never allocates again
+public class IntQueue {
+
+    private int[] A;    // circular array; its length is a power of two
+    private int head;   // position of the first item
+    private int n;      // number of items in the queue
+
+    IntQueue() {
+        this(16);
+    }
+
+    IntQueue(int capacity) {
+        int m = 16;
+        while (m < capacity) {
+            m *= 2;
+        }
+        A = new int[m];
+        head = 0;
+        n = 0;
+    }
+
+    public boolean isEmpty() {
+        return n == 0;
+    }
+
+    public int size() {
+        return n;
+    }
+
+    // remove all items but keep the array
+    public void clear() {
+        head = 0;
+        n = 0;
+    }
+
+    public void enqueue(int item) {
+        if (n == A.length) {
+            resize(2 * A.length);
+        }
+        A[(head + n) & (A.length - 1)] = item;
+        n++;
+    }
+
+    public int dequeue() {
+        if (isEmpty()) {
+            throw new RuntimeException("Queue underflow");
+        }
+        int item = A[head];
+        head = (head + 1) & (A.length - 1);
+        n--;
+        return item;
+    }
+
+    public int dequeueTail() {
+        if (isEmpty()) {
+            throw new RuntimeException("Queue underflow");
+        }
+        n--;
+        return A[(head + n) & (A.length - 1)];
+    }
+
+    // i-th item from the head, 0 <= i < size()
+    public int get(int i) {
+        return A[(head + i) & (A.length - 1)];
+    }
+
+    // copy the items into a new array of the given size, unwrapping them to start at 0
+    private void resize(int capacity) {
+        int[] B = new int[capacity];
+        for (int i = 0; i < n; i++) {
+            B[i] = A[(head + i) & (A.length - 1)];
+        }
+        A = B;
+        head = 0;
+    }
+}
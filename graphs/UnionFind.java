@@ -0,0 +1,60 @@
+// union-find (disjoint sets) with union by rank and path compression;
+// connected() and union() take near-constant amortized time
+public class UnionFind {
+
+    private final int[] id;     // id[v] = parent of v, or v itself if v is a root
+    private final byte[] rank;  // rank[v] = upper bound on the height of the tree rooted at v
+    private int count;          // number of sets
+
+    UnionFind(int N) {
+        id = new int[N];
+        rank = new byte[N];
+        for (int v = 0; v < N; v++) {
+            id[v] = v;
+        }
+        count = N;
+    }
+
+    // root of the set that contains v
+    public int find(int v) {
+        int r = v;
+        while (id[r] != r) {
+            r = id[r];
+        }
+        while (id[v] != r) {    // path compression: point every vertex on the path at the root
+            int next = id[v];
+            id[v] = r;
+            v = next;
+        }
+        return r;
+    }
+
+    // merge the sets that contain v and w; return false if they were already merged
+    public boolean union(int v, int w) {
+        int i = find(v);
+        int j = find(w);
+        if (i == j) {
+            return false;
+        }
+        if (rank[i] < rank[j]) {
+            id[i] = j;
+        } else if (rank[i] > rank[j]) {
+            id[j] = i;
+        } else {
+            id[j] = i;
+            rank[i]++;
+        }
+        count--;
+        return true;
+    }
+
+    // test if v and w are in the same set
+    public boolean connected(int v, int w) {
+        return find(v) == find(w);
+    }
+
+    // number of sets
+    public int count() {
+        return count;
+    }
+}
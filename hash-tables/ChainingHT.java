@@ -1,33 +1,120 @@
 import java.io.*;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.TreeMap;
+import java.util.function.BiConsumer;
 
 public class ChainingHT<Key,Value> {
 
     private class Node {
+        final int hash;   // hash code of key, cached for resizing and fast rejects
         Key key;
         Value value;
         Node next;    // next node of linked list 
  
-        Node(Key key, Value value, Node next) {
+        Node(int hash, Key key, Value value, Node next) {
+            this.hash = hash;
             this.key = key;
             this.value = value;
             this.next = next;
         }
     }
 
+    private static final int MIGRATE = 4;   // buckets moved per operation during an incremental resize
+    private static final int MAX_LOAD = 80; // grow when the load factor reaches this
+    private static final int MIN_LOAD = 20; // shrink when it falls to this; well below MAX_LOAD / 2,
+                                            // so that a grow or a shrink is never undone at once
+    private static final int TREEIFY = 8;   // chains longer than this get a tree, if their keys are Comparable
+
     private int m;          // hash table size
     private Node[] T;       // hash table
     private int n;          // number of distinct items inserted
 
-    // hash function
+    private final boolean incremental;  // spread resizing over later operations?
+    private Node[] old;     // table being emptied by an incremental resize, null if none
+    private int oldM;       // size of old
+    private int moved;      // buckets of old already moved into T
+
+    // a chain that grows longer than TREEIFY, which only happens with a bad hash function or
+    // keys chosen to collide, also gets a search tree of its nodes, so that it is searched
+    // in logarithmic time; the nodes stay in the chain, which is still used to move them
+    private Tree[] trees;       // trees[i] = tree of chain T[i], null if none
+    private Tree[] oldTrees;    // trees of the chains of old
+
+    // search tree of the nodes of a chain whose keys are of one Comparable class; as in the
+    // tree bins of HashMap, nodes are ordered by hash first and by compareTo() among equal
+    // hashes. keys of other classes are only in the chain, and are searched there
+    private class Tree {
+        final Class<?> type;    // class of the keys in the tree
+        final TreeMap<Node,Node> nodes = new TreeMap<Node,Node>(ChainingHT.this::compare);
+
+        Tree(Class<?> type) {
+            this.type = type;
+        }
+
+        // node of key, whose hash is h, or null
+        Node get(Key key, int h) {
+            return nodes.get(new Node(h, key, null, null));
+        }
+
+        // add node x if its key is of the class of the tree
+        void add(Node x) {
+            if (x.key.getClass() == type) {
+                nodes.put(x, x);
+            }
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private int compare(Node a, Node b) {
+        if (a.hash != b.hash) {
+            return Integer.compare(a.hash, b.hash);
+        }
+        return ((Comparable<Object>) a.key).compareTo(b.key);
+    }
+
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private Tree[] newTrees(int size) {
+        return (Tree[]) new ChainingHT.Tree[size];
+    }
+
+    private final boolean seeded;   // hash with SeededHash instead of hashCode()?
+    private final long seed;
+
+    private HTStats stats;  // statistics, null unless enabled
+
+    // hash function; the chain of key in a table of size m is hash(key) % m
+    // nodes keep this value, so keys are hashed once and equals() is only
+    // called on nodes whose hash matches
     private int hash(Key key) {
-        return ((key.hashCode() & 0x7fffffff) % m);
+        if (seeded) {
+            return SeededHash.hash(key, seed) & 0x7fffffff;
+        }
+        return key.hashCode() & 0x7fffffff;
     }
 
     // constructor: initialize empty hash table of size M
     ChainingHT(int M) {
+        this(M, false);
+    }
+
+    // constructor: initialize empty hash table of size M; if incremental is true, a resize
+    // only allocates the new table and the chains are moved over a few buckets per
+    // operation, so that no single insert pays for rehashing the whole table
+    ChainingHT(int M, boolean incremental) {
+        this(M, incremental, false);
+    }
+
+    // constructor: as above; if seeded is true, keys are hashed with a random seed of
+    // this table (see SeededHash), so that input built to collide cannot be prepared
+    ChainingHT(int M, boolean incremental, boolean seeded) {
         m = M;
         n = 0;
         T = new ChainingHT.Node[m];
+        this.incremental = incremental;
+        this.seeded = seeded;
+        this.seed = seeded ? SeededHash.newSeed() : 0;
     }
     
     public int words() {
@@ -38,66 +125,276 @@ public class ChainingHT<Key,Value> {
         return (double) 100 * n / m;
     }
 
-    // insert key with associated value
-    public void insert(Key key, Value value) {
+    // node of key, whose hash is h, in chain i of table t with trees tr, or null
+    private Node find(Node[] t, Tree[] tr, int i, Key key, int h) {
+        if (tr != null && tr[i] != null && tr[i].type == key.getClass()) {
+            return tr[i].get(key, h);
+        }
+        for (Node x = t[i]; x != null; x = x.next) {
+            if (x.hash == h && key.equals(x.key)) {
+                return x;
+            }
+        }
+        return null;
+    }
+
+    // is the chain starting at x longer than TREEIFY
+    private boolean longer(Node x) {
+        int length = 0;
+        for (; x != null && length <= TREEIFY; x = x.next) {
+            length++;
+        }
+        return length > TREEIFY;
+    }
+
+    // a node was added at the front of chain i of T: add it to the tree of the chain,
+    // or give the chain a tree if it has become too long
+    private void added(int i) {
+        Node x = T[i];
+        if (trees != null && trees[i] != null) {
+            trees[i].add(x);
+        } else if (longer(x)) {
+            treeify(i);
+        }
+    }
 
-        int i = hash(key);
+    // build the tree of chain i of T, for the keys of the class of its first key;
+    // a chain whose first key is not Comparable is left as it is
+    private void treeify(int i) {
+        if (!(T[i].key instanceof Comparable)) {
+            return;
+        }
+        if (trees == null) {
+            trees = newTrees(m);
+        }
+        trees[i] = new Tree(T[i].key.getClass());
         for (Node x = T[i]; x != null; x = x.next) {
-            if (key.equals(x.key)) {
+            trees[i].add(x);
+        }
+    }
+
+    // insert key with associated value
+    public void insert(Key key, Value value) {
+        int h = hash(key);
+        if (old != null) {
+            migrate(MIGRATE);
+        }
+        if (old != null) {
+            // a key in a bucket that has not been moved yet is updated where it is
+            Node x = find(old, oldTrees, h % oldM, key, h);
+            if (x != null) {
                 x.value = value;
-                if (loadFactor() >= 80) {
-                    resize(2 * m);
-                }
-                else if (loadFactor() <= 40) {
-                    resize(m / 2);
-                }
                 return;
             }
         }
-        T[i] = new Node(key, value, T[i]);
-        if (loadFactor() >= 80) {
+
+        int i = h % m;
+        Node x = find(T, trees, i, key, h);
+        if (x != null) {
+            x.value = value;
+            if (old == null && loadFactor() >= MAX_LOAD) {
+                resize(2 * m);
+            }
+            else if (old == null && m > 1 && loadFactor() <= MIN_LOAD) {
+                resize(m / 2);
+            }
+            return;
+        }
+        if (stats != null && T[i] != null) {
+            stats.collisions++;
+        }
+        T[i] = new Node(h, key, value, T[i]);
+        added(i);
+        n++;
+        if (old == null && loadFactor() >= MAX_LOAD) {
             resize(2 * m);
         } 
-        n++;
     }
 
     // return the value associated with key
     public Value contains(Key key) {
-        int i = hash(key);
-        for (Node x = T[i]; x != null; x = x.next) {
-            if (key.equals(x.key)) {
-                return x.value;
-            }
+        int h = hash(key);
+        if (old != null) {
+            migrate(MIGRATE);
         }
-        return null;
+        Node x = null;
+        if (old != null) {
+            x = find(old, oldTrees, h % oldM, key, h);
+        }
+        if (x == null) {
+            x = find(T, trees, h % m, key, h);
+        }
+        return x == null ? null : x.value;
     }
 
     public void rehash() {
-        ChainingHT<Key, Value> temp = new ChainingHT<Key, Value>(2 * m);
+        resize(2 * m);
+    }
+
+    private void resize(int chains) {
+        if (old != null) {
+            migrate(oldM);  // finish the pending incremental resize first
+        }
+        if (stats == null) {
+            rebuild(chains);
+            return;
+        }
+        long t = System.nanoTime();
+        rebuild(chains);
+        stats.resizes++;
+        stats.resizeNanos += System.nanoTime() - t;
+    }
+
+    // method to resize the hash table to the given number of chains
+    // the nodes are relinked into the new table instead of being inserted again
+    private void rebuild(int chains) {
+        if (incremental) {
+            old = T;
+            oldM = m;
+            oldTrees = trees;
+            moved = 0;
+            T = new ChainingHT.Node[chains];
+            m = chains;
+            trees = null;
+            return;
+        }
+        Node[] t = new ChainingHT.Node[chains];
+        for (int i = 0; i < m; i++) {
+            Node x = T[i];
+            while (x != null) {
+                Node next = x.next;
+                int j = x.hash % chains;
+                x.next = t[j];
+                t[j] = x;
+                x = next;
+            }
+        }
+        m = chains;
+        T = t;
+        trees = null;
         for (int i = 0; i < m; i++) {
-            for (Node x = T[i]; x != null; x = x.next) {
-                temp.insert(x.key, x.value);
+            if (longer(T[i])) {
+                treeify(i);
             }
         }
-        T = temp.T;
-        m = temp.m;
     }
 
-    // method to check the load factor of the hash table and resize it if necessary
-    private void resize(int chains) {
-        ChainingHT<Key, Value> temp = new ChainingHT<Key, Value>(chains);
+    // move the chains of up to the given number of buckets from old into T
+    // with statistics enabled, the time this takes counts as resize time
+    private void migrate(int buckets) {
+        long t = stats == null ? 0 : System.nanoTime();
+        for (int b = 0; b < buckets && moved < oldM; b++, moved++) {
+            Node x = old[moved];
+            while (x != null) {
+                Node next = x.next;
+                int j = x.hash % m;
+                x.next = T[j];
+                T[j] = x;
+                added(j);
+                x = next;
+            }
+            old[moved] = null;
+            if (oldTrees != null) {
+                oldTrees[moved] = null;
+            }
+        }
+        if (moved == oldM) {
+            old = null;
+            oldTrees = null;
+        }
+        if (stats != null) {
+            stats.resizeNanos += System.nanoTime() - t;
+        }
+    }
+
+    // start counting resizes and collisions; see HTStats
+    public void enableStats() {
+        if (stats == null) {
+            stats = new HTStats("chain length");
+        }
+    }
+
+    // statistics of the table, with the length of every chain measured now; during an
+    // incremental resize the chains of old that have not been moved yet are measured too,
+    // so asking for statistics never changes the table
+    // null if enableStats() has not been called
+    public HTStats stats() {
+        if (stats == null) {
+            return null;
+        }
+        stats.clearLengths();
         for (int i = 0; i < m; i++) {
-            for (Node x = T[i]; x != null; x = x.next) {
-                temp.insert(x.key, x.value);
+            record(T[i]);
+        }
+        for (int i = moved; old != null && i < oldM; i++) {
+            record(old[i]);
+        }
+        return stats;
+    }
+
+    // record the length of the chain starting at x
+    private void record(Node x) {
+        int length = 0;
+        for (; x != null; x = x.next) {
+            length++;
+        }
+        stats.record(length);
+    }
+
+    public void printStats() {
+        HTStats s = stats();
+        if (s == null) {
+            System.out.println("statistics are not enabled");
+            return;
+        }
+        s.print();
+    }
+
+    // iterate over the keys of the table, in no particular order
+    // the table must not be changed while the iteration is in progress
+    public Iterable<Key> keys() {
+        if (old != null) {
+            migrate(oldM);  // finish a pending incremental resize so that T holds every item
+        }
+        return () -> new Iterator<Key>() {
+            private int i = 0;          // next bucket to look at
+            private Node x = null;      // next node to return
+
+            public boolean hasNext() {
+                while (x == null && i < m) {
+                    x = T[i++];
+                }
+                return x != null;
+            }
+
+            public Key next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                Key key = x.key;
+                x = x.next;
+                return key;
+            }
+        };
+    }
+
+    // pass every key of the table and its value to action, in no particular order
+    public void forEach(BiConsumer<? super Key, ? super Value> action) {
+        if (old != null) {
+            migrate(oldM);  // finish a pending incremental resize so that T holds every item
+        }
+        for (int j = 0; j < m; j++) {
+            for (Node x = T[j]; x != null; x = x.next) {
+                action.accept(x.key, x.value);
             }
         }
-        m = temp.m;
-        n = temp.n;
-        T = temp.T;
     }
 
     // print hash table 
     void print() {
+        if (old != null) {
+            migrate(oldM);  // finish a pending incremental resize so that T holds every item
+        }
         System.out.println("");
         for (int j = 0; j < m; j++) {
             Node x = T[j];
@@ -114,23 +411,41 @@ public class ChainingHT<Key,Value> {
         System.out.println("Test Hash Table with Chaining");
         
         int M = 3000; // initial hash table size
-        ChainingHT T = new ChainingHT<String,Integer>(M);
+        boolean incremental = Arrays.asList(args).contains("-incremental");
+        boolean seeded = Arrays.asList(args).contains("-seeded");
+        boolean stats = Arrays.asList(args).contains("-stats");
+        ChainingHT T = new ChainingHT<String,Integer>(M, incremental, seeded);
+        if (stats) {
+            T.enableStats();
+        }
+
+        // every update is timed only with -incremental or -stats, so that the default
+        // construction time stays comparable with the other drivers
+        boolean timed = incremental || stats;
 
         In.init();
         long startTime = System.currentTimeMillis();
+        long slowest = 0;   // longest single update, in nanoseconds
         while (!In.empty()) {
             String s = In.getString();
+            long t = timed ? System.nanoTime() : 0;
             Integer count = (Integer) T.contains(s);
             if ( count != null ) {
                 T.insert(s, count + 1);
             } else {
                 T.insert(s, 1);
             }
+            if (timed) {
+                slowest = Math.max(slowest, System.nanoTime() - t);
+            }
         }
         //T.print();
         long endTime = System.currentTimeMillis();
         long chtTime = endTime - startTime;
         System.out.println("construction time = " + chtTime);
+        if (timed) {
+            System.out.println("longest update (microseconds) = " + slowest / 1000);
+        }
         System.out.println("load factor = " + T.loadFactor());
 
         System.out.println("number of words = " + T.words());
@@ -144,6 +459,9 @@ public class ChainingHT<Key,Value> {
         System.out.println("contains 'the' " + T.contains("the") + " times");
         System.out.println("contains 'train' " + T.contains("train") + " times");
         System.out.println("contains 'wondered' " + T.contains("wondered") + " times");
+        if (stats) {
+            T.printStats();
+        }
         
         endTime = System.currentTimeMillis();
         long totalTime = endTime - startTime;
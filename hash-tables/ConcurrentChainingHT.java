@@ -0,0 +1,253 @@
+import java.io.*;
+import java.util.ArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BinaryOperator;
+
+// hash table with chaining that can be used by many threads at once
+//
+// the buckets are divided into STRIPES stripes, bucket i belonging to stripe i % STRIPES,
+// and every operation on a key holds only the lock of the key's stripe. table sizes are
+// powers of two and at least STRIPES, so when the table doubles the chains of a bucket
+// stay in the same stripe. a resize therefore proceeds stripe by stripe: the first
+// operation that locks a stripe moves that stripe's chains into the new table, and every
+// operation also helps by moving one more stripe, so threads cooperate and nobody ever
+// holds more than one lock
+public class ConcurrentChainingHT<Key,Value> {
+
+    private static final int STRIPES = 64;
+
+    private class Node {
+        final int hash;   // hash code of key
+        final Key key;
+        Value value;
+        Node next;        // next node of linked list
+
+        Node(int hash, Key key, Value value, Node next) {
+            this.hash = hash;
+            this.key = key;
+            this.value = value;
+            this.next = next;
+        }
+    }
+
+    // the hash table and, during a resize, the table being emptied into it
+    private class State {
+        final Node[] T;                 // hash table
+        final Node[] old;               // previous table, null if no resize is in progress
+        final boolean[] moved;          // moved[s] = stripe s was moved from old to T; guarded by lock s
+        final AtomicInteger pending;    // number of stripes not moved yet
+        final AtomicInteger cursor;     // next stripe offered to helping threads
+
+        State(Node[] T, Node[] old) {
+            this.T = T;
+            this.old = old;
+            moved = old == null ? null : new boolean[STRIPES];
+            pending = new AtomicInteger(STRIPES);
+            cursor = new AtomicInteger(0);
+        }
+    }
+
+    private final ReentrantLock[] locks;        // locks[s] guards the buckets of stripe s
+    private final AtomicReference<State> state;
+    private final AtomicInteger n;              // number of distinct items inserted
+
+    // hash function; the high bits are folded in because the mask keeps only the low ones
+    private int hash(Key key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    // constructor: initialize empty hash table of size M, rounded up to a power of two
+    ConcurrentChainingHT(int M) {
+        int m = STRIPES;
+        while (m < M) {
+            m *= 2;
+        }
+        locks = new ReentrantLock[STRIPES];
+        for (int s = 0; s < STRIPES; s++) {
+            locks[s] = new ReentrantLock();
+        }
+        state = new AtomicReference<State>(new State(newTable(m), null));
+        n = new AtomicInteger(0);
+    }
+
+    private Node[] newTable(int m) {
+        return (Node[]) new ConcurrentChainingHT.Node[m];
+    }
+
+    public int words() {
+        return n.get();
+    }
+
+    public double loadFactor() {
+        return (double) 100 * n.get() / state.get().T.length;
+    }
+
+    // return the current state after making sure that stripe s is in its table;
+    // must be called while holding lock s
+    private State table(int s) {
+        State st = state.get();
+        if (st.old != null && !st.moved[s]) {
+            transfer(st, s);
+        }
+        return st;
+    }
+
+    // move the chains of stripe s from st.old into st.T; must be called while holding lock s
+    private void transfer(State st, int s) {
+        Node[] T = st.T;
+        for (int i = s; i < st.old.length; i += STRIPES) {
+            Node x = st.old[i];
+            while (x != null) {
+                Node next = x.next;
+                int j = x.hash & (T.length - 1);
+                x.next = T[j];
+                T[j] = x;
+                x = next;
+            }
+            st.old[i] = null;
+        }
+        st.moved[s] = true;
+        if (st.pending.decrementAndGet() == 0) {
+            state.compareAndSet(st, new State(T, null));    // resize finished
+        }
+    }
+
+    // move one stripe of a resize in progress, if any is left
+    private void help() {
+        State st = state.get();
+        if (st.old == null) {
+            return;
+        }
+        int s = st.cursor.getAndIncrement();
+        if (s >= STRIPES) {
+            return;
+        }
+        locks[s].lock();
+        try {
+            if (!st.moved[s]) {
+                transfer(st, s);
+            }
+        } finally {
+            locks[s].unlock();
+        }
+    }
+
+    // start doubling the table if it is more than 80% full and no resize is in progress
+    private void checkResize() {
+        State st = state.get();
+        if (st.old == null && 100L * n.get() >= 80L * st.T.length) {
+            state.compareAndSet(st, new State(newTable(2 * st.T.length), st.T));
+        }
+    }
+
+    // insert key with associated value
+    public void insert(Key key, Value value) {
+        merge(key, value, null);
+    }
+
+    // atomically combine value with the value associated with key, or associate value
+    // with key if it has none; with f = Integer::sum and value = 1 this is an atomic increment
+    // return the new value associated with key
+    public Value merge(Key key, Value value, BinaryOperator<Value> f) {
+        int h = hash(key);
+        int s = h & (STRIPES - 1);
+        boolean added = false;
+        locks[s].lock();
+        try {
+            Node[] T = table(s).T;
+            int i = h & (T.length - 1);
+            for (Node x = T[i]; x != null; x = x.next) {
+                if (x.hash == h && key.equals(x.key)) {
+                    x.value = f == null ? value : f.apply(x.value, value);
+                    return x.value;
+                }
+            }
+            T[i] = new Node(h, key, value, T[i]);
+            added = true;
+        } finally {
+            locks[s].unlock();
+            if (added) {
+                n.incrementAndGet();
+            }
+        }
+        help();
+        checkResize();
+        return value;
+    }
+
+    // return the value associated with key
+    public Value contains(Key key) {
+        int h = hash(key);
+        int s = h & (STRIPES - 1);
+        Value value = null;
+        locks[s].lock();
+        try {
+            Node[] T = table(s).T;
+            for (Node x = T[h & (T.length - 1)]; x != null; x = x.next) {
+                if (x.hash == h && key.equals(x.key)) {
+                    value = x.value;
+                    break;
+                }
+            }
+        } finally {
+            locks[s].unlock();
+        }
+        help();
+        return value;
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        System.out.println("Test Concurrent Hash Table with Chaining");
+
+        int threads = args.length > 0 ? Integer.parseInt(args[0]) : Runtime.getRuntime().availableProcessors();
+        System.out.println("threads = " + threads);
+
+        ArrayList<String> words = new ArrayList<String>();
+        In.init();
+        while (!In.empty()) {
+            words.add(In.getString());
+        }
+
+        int M = 3000; // initial hash table size
+        ConcurrentChainingHT<String,Integer> T = new ConcurrentChainingHT<String,Integer>(M);
+
+        long startTime = System.currentTimeMillis();
+        Thread[] workers = new Thread[threads];
+        for (int t = 0; t < threads; t++) {
+            int lo = (int) ((long) words.size() * t / threads);
+            int hi = (int) ((long) words.size() * (t + 1) / threads);
+            workers[t] = new Thread(() -> {
+                for (int i = lo; i < hi; i++) {
+                    T.merge(words.get(i), 1, Integer::sum);
+                }
+            });
+            workers[t].start();
+        }
+        for (Thread w : workers) {
+            w.join();
+        }
+        long endTime = System.currentTimeMillis();
+        long chtTime = endTime - startTime;
+        System.out.println("construction time = " + chtTime);
+        System.out.println("load factor = " + T.loadFactor());
+
+        System.out.println("number of words = " + T.words());
+
+        System.out.println("contains 'and' " + T.contains("and") + " times");
+        System.out.println("contains 'astonished' " + T.contains("astonished") + " times");
+        System.out.println("contains 'boat' " + T.contains("boat") + " times");
+        System.out.println("contains 'carol' " + T.contains("carol") + " times");
+        System.out.println("contains 'city' " + T.contains("city") + " times");
+        System.out.println("contains 'scrooge' " + T.contains("scrooge") + " times");
+        System.out.println("contains 'the' " + T.contains("the") + " times");
+        System.out.println("contains 'train' " + T.contains("train") + " times");
+        System.out.println("contains 'wondered' " + T.contains("wondered") + " times");
+
+        endTime = System.currentTimeMillis();
+        long totalTime = endTime - startTime;
+        System.out.println("total running time = " + totalTime);
+    }
+}
@@ -0,0 +1,167 @@
+import java.io.*;
+
+// hash table that maps keys to int counts, e.g. words to their number of occurrences
+// counts are kept in an int[] so updating them never boxes, and increment() finds or
+// adds the key with a single probe sequence instead of contains() followed by insert()
+public class CountingHT<Key> {
+
+    private static final int MAX_LOAD = 75;  // grow when an insert would exceed this load factor
+    private static final int MIN_SIZE = 16;
+
+    private int m;          // hash table size, a power of two
+    private int n;          // number of distinct keys inserted
+    private Key[] keys;     // keys[i] = key in slot i, null if the slot is empty
+    private int[] hashes;   // hashes[i] = hash code of keys[i]
+    private int[] counts;   // counts[i] = count of keys[i]
+
+    // constructor: initialize empty hash table with room for M slots,
+    // rounded up to a power of two
+    CountingHT(int M) {
+        m = MIN_SIZE;
+        while (m < M) {
+            m *= 2;
+        }
+        n = 0;
+        keys = (Key[]) new Object[m];
+        hashes = new int[m];
+        counts = new int[m];
+    }
+
+    // hash code of key with the high bits folded in, since the mask keeps only the low ones
+    private static int hash(Object key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    public int words() {
+        return n;
+    }
+
+    public double loadFactor() {
+        return (double) 100 * n / m;
+    }
+
+    // slot of key, or of the empty slot where it would be inserted
+    private int slot(Key key, int h) {
+        int i = h & (m - 1);
+        while (keys[i] != null) {
+            if (hashes[i] == h && key.equals(keys[i])) {
+                return i;
+            }
+            i = (i + 1) & (m - 1);
+        }
+        return i;
+    }
+
+    // add delta to the count of key, inserting key with count delta if it is new;
+    // return the new count
+    public int increment(Key key, int delta) {
+        int h = hash(key);
+        int i = slot(key, h);
+        if (keys[i] != null) {
+            counts[i] += delta;
+            return counts[i];
+        }
+        if (100L * (n + 1) > (long) MAX_LOAD * m) {
+            resize(2 * m);
+            i = slot(key, h);
+        }
+        keys[i] = key;
+        hashes[i] = h;
+        counts[i] = delta;
+        n++;
+        return delta;
+    }
+
+    // set the count of key
+    public void insert(Key key, int count) {
+        int i = slot(key, hash(key));
+        if (keys[i] != null) {
+            counts[i] = count;
+        } else {
+            increment(key, count);
+        }
+    }
+
+    // return the count of key, 0 if key is not in the table
+    public int contains(Key key) {
+        int i = slot(key, hash(key));
+        return keys[i] == null ? 0 : counts[i];
+    }
+
+    // add every count of table t to this table
+    public void merge(CountingHT<Key> t) {
+        for (int i = 0; i < t.m; i++) {
+            if (t.keys[i] != null) {
+                increment(t.keys[i], t.counts[i]);
+            }
+        }
+    }
+
+    // method to resize the hash table; the stored hashes are reused, so no key is hashed again
+    private void resize(int capacity) {
+        Key[] oldKeys = keys;
+        int[] oldHashes = hashes;
+        int[] oldCounts = counts;
+        m = capacity;
+        keys = (Key[]) new Object[m];
+        hashes = new int[m];
+        counts = new int[m];
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] != null) {
+                int i = oldHashes[j] & (m - 1);
+                while (keys[i] != null) {
+                    i = (i + 1) & (m - 1);
+                }
+                keys[i] = oldKeys[j];
+                hashes[i] = oldHashes[j];
+                counts[i] = oldCounts[j];
+            }
+        }
+    }
+
+    // print hash table
+    void print() {
+        for (int j = 0; j < m; j++) {
+            if (keys[j] == null) {
+                System.out.println("T[" + j + "]=");
+                continue;
+            }
+            System.out.println("T[" + j + "]=" + "(" + keys[j] + "," + counts[j] + ") ");
+        }
+    }
+
+    public static void main(String[] args) {
+        System.out.println("Test Counting Hash Table");
+
+        int M = 3000; // initial hash table size
+        CountingHT<String> T = new CountingHT<String>(M);
+
+        In.init();
+        long startTime = System.currentTimeMillis();
+        while (!In.empty()) {
+            T.increment(In.getString(), 1);
+        }
+        //T.print();
+        long endTime = System.currentTimeMillis();
+        long chtTime = endTime - startTime;
+        System.out.println("construction time = " + chtTime);
+        System.out.println("load factor = " + T.loadFactor());
+
+        System.out.println("number of words = " + T.words());
+
+        System.out.println("contains 'and' " + T.contains("and") + " times");
+        System.out.println("contains 'astonished' " + T.contains("astonished") + " times");
+        System.out.println("contains 'boat' " + T.contains("boat") + " times");
+        System.out.println("contains 'carol' " + T.contains("carol") + " times");
+        System.out.println("contains 'city' " + T.contains("city") + " times");
+        System.out.println("contains 'scrooge' " + T.contains("scrooge") + " times");
+        System.out.println("contains 'the' " + T.contains("the") + " times");
+        System.out.println("contains 'train' " + T.contains("train") + " times");
+        System.out.println("contains 'wondered' " + T.contains("wondered") + " times");
+
+        endTime = System.currentTimeMillis();
+        long totalTime = endTime - startTime;
+        System.out.println("total running time = " + totalTime);
+    }
+}
@@ -0,0 +1,375 @@
+import java.io.*;
+import java.util.Random;
+
+// bucketized cuckoo hash table
+//
+// every key may live in only two buckets of SLOTS slots each, chosen by two hash functions,
+// or in a small stash for the rare keys that could not be placed; contains() therefore
+// looks at no more than two buckets (and the stash, when it is not empty) whatever the load.
+// an insert that finds both buckets full evicts a key to its other bucket, and so on, until
+// a free slot is found; if that takes too long the evictions are undone and the key goes to
+// the stash. if the stash is full too, the table is rebuilt with a new random seed for its
+// hash function (see SeededHash), and doubled when it is well filled
+//
+// the stash never grows: a rebuild with a new seed separates strings that share a hash, but
+// other keys whose hashCode() values are equal keep sharing both buckets under every seed,
+// and at most 2 * SLOTS + STASH of them fit. when MAX_REHASHES seeds in a row fail, insert()
+// leaves the table as it was and throws an IllegalStateException
+public class CuckooHT<Key,Value> {
+
+    private static final int SLOTS = 4;         // slots per bucket
+    private static final int STASH = 8;         // stash size
+    private static final int MAX_KICKS = 500;   // evictions tried before using the stash
+    private static final int MAX_LOAD = 90;     // grow when an insert would exceed this load factor
+    private static final int MAX_REHASHES = 8;  // seeds tried by a rebuild before giving up
+
+    private int b;              // number of buckets, a power of two
+    private int n;              // number of distinct items inserted
+    private long seed;          // seed of the hash function
+    private Key[] keys;         // the slots of bucket i are SLOTS*i .. SLOTS*i+SLOTS-1
+    private Value[] values;
+    private int[] hashes;       // hashes[j] = hash(keys[j]); both buckets of a key are derived from it
+    private Key[] stashKeys;
+    private Value[] stashValues;
+    private int[] stashHashes;
+    private int stashN;         // number of items in the stash
+
+    private final int[] path = new int[MAX_KICKS];  // slots that place() evicted a key from
+    private final Random rand = new Random(0);  // picks the key to evict
+
+    // constructor: initialize empty hash table with room for M items,
+    // rounded up to a power of two number of buckets
+    CuckooHT(int M) {
+        b = 4;
+        while (b * SLOTS < M) {
+            b *= 2;
+        }
+        n = 0;
+        seed = SeededHash.newSeed();
+        allocate();
+    }
+
+    private void allocate() {
+        keys = (Key[]) new Object[b * SLOTS];
+        values = (Value[]) new Object[b * SLOTS];
+        hashes = new int[b * SLOTS];
+        stashKeys = (Key[]) new Object[STASH];
+        stashValues = (Value[]) new Object[STASH];
+        stashHashes = new int[STASH];
+        stashN = 0;
+    }
+
+    private int hash(Key key) {
+        return SeededHash.hash(key, seed);
+    }
+
+    // first bucket of a key with hash h
+    private int bucket1(int h) {
+        return (h ^ (h >>> 16)) & (b - 1);
+    }
+
+    // second bucket of a key with hash h: an independent mix of h, never equal to the first
+    private int bucket2(int h) {
+        int x = h * 0x85ebca6b;
+        x ^= x >>> 13;
+        x *= 0xc2b2ae35;
+        x ^= x >>> 16;
+        int i = x & (b - 1);
+        return i == bucket1(h) ? (i + 1) & (b - 1) : i;
+    }
+
+    public int words() {
+        return n;
+    }
+
+    public double loadFactor() {
+        return (double) 100 * n / (b * SLOTS);
+    }
+
+    // slot of key in its bucket starting at slot j, or -1
+    private int search(int j, Key key, int h) {
+        for (int s = 0; s < SLOTS; s++, j++) {
+            if (hashes[j] == h && keys[j] != null && key.equals(keys[j])) {
+                return j;
+            }
+        }
+        return -1;
+    }
+
+    // position of key in the stash, or -1
+    private int searchStash(Key key, int h) {
+        for (int i = 0; i < stashN; i++) {
+            if (stashHashes[i] == h && key.equals(stashKeys[i])) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // insert key with associated value
+    public void insert(Key key, Value value) {
+        int h = hash(key);
+        int j = search(bucket1(h) * SLOTS, key, h);
+        if (j == -1) {
+            j = search(bucket2(h) * SLOTS, key, h);
+        }
+        if (j != -1) {
+            values[j] = value;
+            return;
+        }
+        j = searchStash(key, h);
+        if (j != -1) {
+            stashValues[j] = value;
+            return;
+        }
+        if (100L * (n + 1) > (long) MAX_LOAD * b * SLOTS) {
+            rebuild(2 * b, false, null, null);
+            h = hash(key);
+        }
+        if (!place(h, key, value)) {
+            rebuild(100L * n >= 50L * b * SLOTS ? 2 * b : b, true, key, value);
+        }
+        n++;
+    }
+
+    // free slot of bucket i, or -1 if the bucket is full
+    private int freeSlot(int i) {
+        int j = i * SLOTS;
+        for (int s = 0; s < SLOTS; s++, j++) {
+            if (keys[j] == null) {
+                return j;
+            }
+        }
+        return -1;
+    }
+
+    // put an item whose key is not in the table into one of its buckets, evicting other
+    // keys to their other bucket if necessary, or into the stash; if the stash is full,
+    // the evictions are undone, so the table is as it was, and false is returned
+    private boolean place(int h, Key key, Value value) {
+        int i = bucket1(h);
+        int j = freeSlot(i);
+        if (j == -1) {
+            i = bucket2(h);
+            j = freeSlot(i);
+        }
+        int kick = 0;
+        for (; j == -1 && kick < MAX_KICKS; kick++) {
+            // evict a random key of bucket i and move it to its other bucket
+            int victim = i * SLOTS + rand.nextInt(SLOTS);
+            path[kick] = victim;
+            int vh = hashes[victim];
+            Key vk = keys[victim];
+            Value vv = values[victim];
+            hashes[victim] = h;
+            keys[victim] = key;
+            values[victim] = value;
+            h = vh;
+            key = vk;
+            value = vv;
+            int b1 = bucket1(h);
+            i = (i == b1) ? bucket2(h) : b1;
+            j = freeSlot(i);
+        }
+        if (j != -1) {
+            hashes[j] = h;
+            keys[j] = key;
+            values[j] = value;
+            return true;
+        }
+        if (stashN < STASH) {
+            stashHashes[stashN] = h;
+            stashKeys[stashN] = key;
+            stashValues[stashN] = value;
+            stashN++;
+            return true;
+        }
+        // put every evicted key back, last eviction first
+        while (kick > 0) {
+            int victim = path[--kick];
+            int vh = hashes[victim];
+            Key vk = keys[victim];
+            Value vv = values[victim];
+            hashes[victim] = h;
+            keys[victim] = key;
+            values[victim] = value;
+            h = vh;
+            key = vk;
+            value = vv;
+        }
+        return false;
+    }
+
+    // rebuild the table with the given number of buckets, adding the item key/value if key
+    // is not null. a rebuild that grows the table first tries to keep the seed and reuse the
+    // stored hashes; every other attempt picks a new seed and hashes the keys again, and
+    // doubles the table if it is well filled. if MAX_REHASHES new seeds fail, the table is
+    // left as it was and an IllegalStateException is thrown
+    private void rebuild(int buckets, boolean reseed, Key key, Value value) {
+        int c = 0;
+        int[] hs = new int[n + 1];
+        Key[] ks = (Key[]) new Object[n + 1];
+        Value[] vs = (Value[]) new Object[n + 1];
+        for (int j = 0; j < keys.length; j++) {
+            if (keys[j] != null) {
+                hs[c] = hashes[j];
+                ks[c] = keys[j];
+                vs[c++] = values[j];
+            }
+        }
+        for (int i = 0; i < stashN; i++) {
+            hs[c] = stashHashes[i];
+            ks[c] = stashKeys[i];
+            vs[c++] = stashValues[i];
+        }
+        if (key != null) {
+            hs[c] = hash(key);
+            ks[c] = key;
+            vs[c++] = value;
+        }
+
+        int oldB = b;
+        long oldSeed = seed;
+        Key[] oldKeys = keys;
+        Value[] oldValues = values;
+        int[] oldHashes = hashes;
+        Key[] oldStashKeys = stashKeys;
+        Value[] oldStashValues = stashValues;
+        int[] oldStashHashes = stashHashes;
+        int oldStashN = stashN;
+
+        for (int attempt = reseed ? 1 : 0; attempt <= MAX_REHASHES; attempt++) {
+            if (attempt > 1 && 100L * c >= 50L * buckets * SLOTS) {
+                buckets *= 2;
+            }
+            b = buckets;
+            if (attempt > 0) {
+                seed = SeededHash.newSeed();
+                for (int i = 0; i < c; i++) {
+                    hs[i] = hash(ks[i]);
+                }
+            }
+            allocate();
+            boolean placed = true;
+            for (int i = 0; i < c && placed; i++) {
+                placed = place(hs[i], ks[i], vs[i]);
+            }
+            if (placed) {
+                return;
+            }
+        }
+
+        b = oldB;
+        seed = oldSeed;
+        keys = oldKeys;
+        values = oldValues;
+        hashes = oldHashes;
+        stashKeys = oldStashKeys;
+        stashValues = oldStashValues;
+        stashHashes = oldStashHashes;
+        stashN = oldStashN;
+        throw new IllegalStateException("too many keys with the same hash code");
+    }
+
+    // return the value associated with key
+    public Value contains(Key key) {
+        int h = hash(key);
+        int j = search(bucket1(h) * SLOTS, key, h);
+        if (j == -1) {
+            j = search(bucket2(h) * SLOTS, key, h);
+        }
+        if (j != -1) {
+            return values[j];
+        }
+        if (stashN > 0) {
+            j = searchStash(key, h);
+            if (j != -1) {
+                return stashValues[j];
+            }
+        }
+        return null;
+    }
+
+    // delete key and its value
+    public void delete(Key key) {
+        int h = hash(key);
+        int j = search(bucket1(h) * SLOTS, key, h);
+        if (j == -1) {
+            j = search(bucket2(h) * SLOTS, key, h);
+        }
+        if (j != -1) {
+            keys[j] = null;
+            values[j] = null;
+            n--;
+            return;
+        }
+        j = searchStash(key, h);
+        if (j != -1) {
+            stashN--;
+            stashHashes[j] = stashHashes[stashN];
+            stashKeys[j] = stashKeys[stashN];
+            stashValues[j] = stashValues[stashN];
+            stashKeys[stashN] = null;
+            stashValues[stashN] = null;
+            n--;
+        }
+    }
+
+    // print hash table
+    void print() {
+        for (int i = 0; i < b; i++) {
+            System.out.print("B[" + i + "] = ");
+            for (int j = i * SLOTS; j < (i + 1) * SLOTS; j++) {
+                if (keys[j] != null) {
+                    System.out.print("(" + keys[j] + "," + values[j] + ") ");
+                }
+            }
+            System.out.println("");
+        }
+        System.out.print("stash = ");
+        for (int i = 0; i < stashN; i++) {
+            System.out.print("(" + stashKeys[i] + "," + stashValues[i] + ") ");
+        }
+        System.out.println("");
+    }
+
+    public static void main(String[] args) {
+        System.out.println("Test Cuckoo Hash Table");
+
+        int M = 3000; // initial hash table size
+        CuckooHT T = new CuckooHT<String,Integer>(M);
+
+        In.init();
+        long startTime = System.currentTimeMillis();
+        while (!In.empty()) {
+            String s = In.getString();
+            Integer count = (Integer) T.contains(s);
+            if ( count != null ) {
+                T.insert(s, count + 1);
+            } else {
+                T.insert(s, 1);
+            }
+        }
+        //T.print();
+        long endTime = System.currentTimeMillis();
+        long chtTime = endTime - startTime;
+        System.out.println("construction time = " + chtTime);
+        System.out.println("load factor = " + T.loadFactor());
+
+        System.out.println("number of words = " + T.words());
+
+        System.out.println("contains 'and' " + T.contains("and") + " times");
+        System.out.println("contains 'astonished' " + T.contains("astonished") + " times");
+        System.out.println("contains 'boat' " + T.contains("boat") + " times");
+        System.out.println("contains 'carol' " + T.contains("carol") + " times");
+        System.out.println("contains 'city' " + T.contains("city") + " times");
+        System.out.println("contains 'scrooge' " + T.contains("scrooge") + " times");
+        System.out.println("contains 'the' " + T.contains("the") + " times");
+        System.out.println("contains 'train' " + T.contains("train") + " times");
+        System.out.println("contains 'wondered' " + T.contains("wondered") + " times");
+
+        endTime = System.currentTimeMillis();
+        long totalTime = endTime - startTime;
+        System.out.println("total running time = " + totalTime);
+    }
+}
@@ -0,0 +1,82 @@
+import java.io.*;
+import java.util.Arrays;
+
+// statistics of a hash table, for tuning its size and spotting bad hash distributions
+//
+// a table only keeps statistics after enableStats() has been called, and then counts its
+// resizes, the time they took and its collisions (inserts of a new key that found its
+// chain or home slot taken) as they happen. the distribution of chain or probe lengths
+// is not tracked on every operation: stats() measures it by scanning the table, so the
+// default path pays nothing but a null check
+public class HTStats {
+
+    private static final int BINS = 16;     // lengths of BINS or more share the last bin
+
+    int resizes;            // number of resizes
+    long resizeNanos;       // total time spent in resizes, in nanoseconds; for a table that resizes
+                            // incrementally, this includes moving the chains after the resize
+    long collisions;        // inserts of a new key that did not find its place free
+
+    private final String what;      // what the lengths measure, e.g. "chain length"
+    private final long[] histogram = new long[BINS + 1];
+    private long count;     // number of lengths recorded
+    private long total;     // sum of the lengths recorded
+    private int max;        // longest length recorded
+
+    HTStats(String what) {
+        this.what = what;
+    }
+
+    // forget the lengths recorded by the previous scan
+    void clearLengths() {
+        Arrays.fill(histogram, 0);
+        count = 0;
+        total = 0;
+        max = 0;
+    }
+
+    // record one chain or probe length
+    void record(int length) {
+        histogram[Math.min(length, BINS)]++;
+        count++;
+        total += length;
+        max = Math.max(max, length);
+    }
+
+    public int resizes() {
+        return resizes;
+    }
+
+    public long resizeNanos() {
+        return resizeNanos;
+    }
+
+    public long collisions() {
+        return collisions;
+    }
+
+    public int maxLength() {
+        return max;
+    }
+
+    public double averageLength() {
+        return count == 0 ? 0 : (double) total / count;
+    }
+
+    // number of lengths equal to length, or at least BINS for the last bin
+    public long histogram(int length) {
+        return histogram[Math.min(length, BINS)];
+    }
+
+    void print() {
+        System.out.println("resizes = " + resizes + " (" + resizeNanos / 1000 + " microseconds)");
+        System.out.println("collisions = " + collisions);
+        System.out.println("max " + what + " = " + max);
+        System.out.println("average " + what + " = " + averageLength());
+        for (int i = 0; i <= BINS; i++) {
+            if (histogram[i] > 0) {
+                System.out.println(what + " " + (i < BINS ? "" + i : ">= " + BINS) + " : " + histogram[i]);
+            }
+        }
+    }
+}
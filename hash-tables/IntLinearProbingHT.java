@@ -0,0 +1,208 @@
+import java.io.*;
+import java.util.Random;
+
+// hash table with linear probing for int keys
+//
+// the keys are kept in an int[] rather than as Integer objects, so no key is ever boxed and a
+// probe reads consecutive ints. an empty slot holds the key 0; the key 0 itself is kept
+// apart from the table. the home slot of a key is given by fibonacci hashing: the key is
+// multiplied by 2^32 / golden ratio and the top bits of the product are used
+public class IntLinearProbingHT<Value> {
+
+    private static final int EMPTY = 0;         // key of an empty slot
+    private static final int MAX_LOAD = 75;     // grow when an insert would exceed this load factor
+    private static final int MIN_LOAD = 20;     // shrink when a delete goes below this load factor
+    private static final int MIN_BITS = 4;
+
+    private int bits;       // the table has 2^bits slots
+    private int m;          // hash table size
+    private int n;          // number of distinct items inserted, the key 0 included
+    private int[] keys;
+    private Value[] values;
+
+    private boolean hasZero;    // is the key 0 in the table
+    private Value zeroValue;    // value associated with the key 0
+
+    // constructor: initialize empty hash table with room for M slots,
+    // rounded up to a power of two
+    IntLinearProbingHT(int M) {
+        bits = MIN_BITS;
+        while ((1 << bits) < M) {
+            bits++;
+        }
+        n = 0;
+        allocate();
+    }
+
+    private void allocate() {
+        m = 1 << bits;
+        keys = new int[m];
+        values = (Value[]) new Object[m];
+    }
+
+    // home slot of key
+    private int hash(int key) {
+        return (key * 0x9E3779B9) >>> (32 - bits);
+    }
+
+    public int words() {
+        return n;
+    }
+
+    public double loadFactor() {
+        return (double) 100 * n / m;
+    }
+
+    // slot of key, or of the empty slot where it would be inserted
+    private int slot(int key) {
+        int i = hash(key);
+        while (keys[i] != EMPTY && keys[i] != key) {
+            i = (i + 1) & (m - 1);
+        }
+        return i;
+    }
+
+    // insert key with associated value
+    public void insert(int key, Value value) {
+        if (key == EMPTY) {
+            if (!hasZero) {
+                hasZero = true;
+                n++;
+            }
+            zeroValue = value;
+            return;
+        }
+        int i = slot(key);
+        if (keys[i] == key) {
+            values[i] = value;
+            return;
+        }
+        if (100L * (n + 1) > (long) MAX_LOAD * m) {
+            resize(bits + 1);
+            i = slot(key);
+        }
+        keys[i] = key;
+        values[i] = value;
+        n++;
+    }
+
+    // return the value associated with key
+    public Value contains(int key) {
+        if (key == EMPTY) {
+            return zeroValue;
+        }
+        int i = slot(key);
+        return keys[i] == key ? values[i] : null;
+    }
+
+    // delete key and its value; the keys after it that would no longer be found are
+    // moved back into the gap, so no tombstones are left behind
+    public void delete(int key) {
+        if (key == EMPTY) {
+            if (hasZero) {
+                hasZero = false;
+                zeroValue = null;
+                n--;
+            }
+            return;
+        }
+        int i = slot(key);
+        if (keys[i] != key) {
+            return;
+        }
+        for (int j = (i + 1) & (m - 1); keys[j] != EMPTY; j = (j + 1) & (m - 1)) {
+            // the key in slot j may fill the gap at i if its home slot is not in (i, j]
+            int k = hash(keys[j]);
+            if (((j - k) & (m - 1)) >= ((j - i) & (m - 1))) {
+                keys[i] = keys[j];
+                values[i] = values[j];
+                i = j;
+            }
+        }
+        keys[i] = EMPTY;
+        values[i] = null;
+        n--;
+        if (bits > MIN_BITS && 100L * n < (long) MIN_LOAD * m) {
+            resize(bits - 1);
+        }
+    }
+
+    // method to resize the hash table to 2^b slots
+    private void resize(int b) {
+        int[] oldKeys = keys;
+        Value[] oldValues = values;
+        bits = b;
+        allocate();
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] != EMPTY) {
+                int i = slot(oldKeys[j]);
+                keys[i] = oldKeys[j];
+                values[i] = oldValues[j];
+            }
+        }
+    }
+
+    // print hash table
+    void print() {
+        if (hasZero) {
+            System.out.println("(0," + zeroValue + ")");
+        }
+        for (int j = 0; j < m; j++) {
+            if (keys[j] == EMPTY) {
+                System.out.println("T[" + j + "]=");
+                continue;
+            }
+            System.out.println("T[" + j + "]=" + "(" + keys[j] + "," + values[j] + ") ");
+        }
+    }
+
+    // usage: java IntLinearProbingHT [number of keys]
+    public static void main(String[] args) {
+        System.out.println("Test Hash Table with Linear Probing and int Keys");
+
+        int N = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+        int[] input = new int[N];
+        int[] pool = new int[N / 2];    // distinct keys, the key 0 included
+        Random rand = new Random(0);
+        for (int i = 1; i < pool.length; i++) {
+            pool[i] = rand.nextInt();
+        }
+        for (int i = 0; i < N; i++) {
+            input[i] = pool[rand.nextInt(pool.length)];
+        }
+
+        int M = 3000; // initial hash table size
+        long startTime = System.currentTimeMillis();
+        IntLinearProbingHT<Integer> T = new IntLinearProbingHT<Integer>(M);
+        for (int key : input) {
+            Integer count = T.contains(key);
+            T.insert(key, count == null ? 1 : count + 1);
+        }
+        long endTime = System.currentTimeMillis();
+        System.out.println("construction time = " + (endTime - startTime));
+        System.out.println("load factor = " + T.loadFactor());
+        System.out.println("number of keys = " + T.words());
+
+        startTime = System.currentTimeMillis();
+        LinearProbingHT<Integer,Integer> B = new LinearProbingHT<Integer,Integer>(M);
+        for (int key : input) {
+            Integer count = B.contains(key);
+            B.insert(key, count == null ? 1 : count + 1);
+        }
+        endTime = System.currentTimeMillis();
+        System.out.println("construction time with boxed keys = " + (endTime - startTime));
+        System.out.println("number of keys = " + B.words());
+
+        for (int i = 0; i < 5; i++) {
+            int key = input[i];
+            System.out.println("contains " + key + " " + T.contains(key) + " times");
+        }
+        System.out.println("contains 0 " + T.contains(0) + " times");
+
+        for (int i = 0; i < N / 2; i++) {
+            T.delete(input[i]);
+        }
+        System.out.println("after deleting the first " + N / 2 + " keys: number of keys = " + T.words()
+                + ", load factor = " + T.loadFactor());
+    }
+}
@@ -1,19 +1,16 @@
 import java.io.*;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.function.BiConsumer;
 
 public class LinearProbingHT<Key,Value> {
 
-    private class Pair {
-        Key key;
-        Value value;
-        
-        Pair(Key key, Value value) {
-            this.key = key;
-            this.value = value;
-        }
-    }
+    private static final int MAX_LOAD = 90;  // grow when an insert would exceed this load factor
+    private static final int MIN_LOAD = 20;  // shrink when a delete goes below this load factor
+    private static final int MIN_SIZE = 16;
 
-    private int m;      // hash table size
-    private Pair[] T;   // hash table
+    private int m;      // hash table size, a power of two
     private int n;      // number of distinct items inserted
     
     public int words() {
@@ -21,27 +18,53 @@ public class LinearProbingHT<Key,Value> {
     }
     private Value[] values;
     private Key[] keys;
+    private int[] hashes;   // hashes[k] = hash(keys[k]), cached for probing, resizing and fast rejects
+    private HTStats stats;  // statistics, null unless enabled
+
+    private final boolean seeded;   // hash with SeededHash instead of hashCode()?
+    private final long seed;
 
-    // hash function
+    // hash function; the high bits are folded in because the mask keeps only the low ones,
+    // and the home slot of a key is hash(key) & (m - 1)
     private int hash(Key key) {
-        return ( (key.hashCode() & 0x7fffffff) % m);
+        if (seeded) {
+            return SeededHash.hash(key, seed);
+        }
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
     }
 
     // linear probing
     private int hashL(int k, int i)
     {
-        return ( (k + i) % m );
+        return ( (k + i) & (m - 1) );
+    }
+
+    // distance of the key in slot k from the slot it hashes to
+    private int distance(int k)
+    {
+        return (k - hashes[k]) & (m - 1);
     }
     
-    // constructor: initialize empty hash table of size M
+    // constructor: initialize empty hash table with room for M slots,
+    // rounded up to a power of two
     LinearProbingHT(int M)
     {
-        m = M;
+        this(M, false);
+    }
+
+    // constructor: as above; if seeded is true, keys are hashed with a random seed of
+    // this table (see SeededHash), so that input built to collide cannot be prepared
+    LinearProbingHT(int M, boolean seeded)
+    {
+        this.seeded = seeded;
+        this.seed = seeded ? SeededHash.newSeed() : 0;
+        m = MIN_SIZE;
+        while (m < M) m *= 2;
         n = 0;
-        T = new LinearProbingHT.Pair[m];
         values = (Value[]) new Object[m];
         keys = (Key[]) new Object[m];
-
+        hashes = new int[m];
     }
 
     public double loadFactor()
@@ -49,58 +72,194 @@ public class LinearProbingHT<Key,Value> {
         return (double) 100*n/m;
     }
 
+    // slot that holds key, whose hash is h, or -1 if key is not in the table
+    // Robin Hood placement keeps every chain ordered by distance from the home slot,
+    // so the search stops as soon as it meets a key closer to home than key would be
+    private int find(Key key, int h)
+    {
+        int k = h & (m - 1);
+        for (int d = 0; keys[k] != null && d <= distance(k); d++) {
+            if (hashes[k] == h && keys[k].equals(key)) {
+                return k;
+            }
+            k = hashL(k, 1);
+        }
+        return -1;
+    }
+
     // insert key with associated value
     public void insert(Key key, Value value) {
+        int h = hash(key);
+        int k = find(key, h);
+        if (k != -1) {
+            values[k] = value;
+            return;
+        }
+        if (100L * (n + 1) > (long) MAX_LOAD * m) resize(2*m);
+        if (stats != null && keys[h & (m - 1)] != null) stats.collisions++;
+        place(h, key, value);
+        n++;
+    }
 
-        int i;
-        for (i = hash(key); keys[i] != null; i = hashL(i, 1)) {
-            if (keys[i].equals(key)) {
-                values[i] = value;
-                if (loadFactor() >= 80) resize(2*m);    
-                else if (loadFactor() <= 40) resize(m/2);
-                return;
+    // put a key that is not in the table into its Robin Hood position: whenever the
+    // probe meets a key that is closer to its home slot, the two swap places and the
+    // displaced key continues the probe
+    private void place(int h, Key key, Value value) {
+        int k = h & (m - 1);
+        int d = 0;     // distance of key from its home slot
+        while (keys[k] != null) {
+            int dk = distance(k);
+            if (dk < d) {
+                int th = hashes[k];
+                Key tk = keys[k];
+                Value tv = values[k];
+                hashes[k] = h;
+                keys[k] = key;
+                values[k] = value;
+                h = th;
+                key = tk;
+                value = tv;
+                d = dk;
             }
+            k = hashL(k, 1);
+            d++;
         }
-        keys[i] = key;
-        values[i] = value;
-        n++;
+        hashes[k] = h;
+        keys[k] = key;
+        values[k] = value;
+    }
+
+    // delete key and its value; the keys after it are shifted one slot back until an
+    // empty slot or a key in its home slot, so no tombstones are left behind
+    public void delete(Key key) {
+        int k = find(key, hash(key));
+        if (k == -1) {
+            return;
+        }
+        int j = hashL(k, 1);
+        while (keys[j] != null && distance(j) > 0) {
+            hashes[k] = hashes[j];
+            keys[k] = keys[j];
+            values[k] = values[j];
+            k = j;
+            j = hashL(j, 1);
+        }
+        keys[k] = null;
+        values[k] = null;
+        n--;
+        if (m > MIN_SIZE && 100L * n < (long) MIN_LOAD * m) resize(m/2);
     }
 
-    // method to resize the hash table
     private void resize(int capacity) {
-        LinearProbingHT<Key,Value> temp = new LinearProbingHT<Key,Value>(capacity);
-        for (int i = 0; i < m; i++) {
-            if (keys[i] != null) {
-                temp.insert(keys[i], values[i]);
+        if (stats == null) {
+            rebuild(capacity);
+            return;
+        }
+        long t = System.nanoTime();
+        rebuild(capacity);
+        stats.resizes++;
+        stats.resizeNanos += System.nanoTime() - t;
+    }
+
+    // method to resize the hash table
+    // the cached hashes are reused, so no key is hashed again
+    private void rebuild(int capacity) {
+        Key[] oldKeys = keys;
+        Value[] oldValues = values;
+        int[] oldHashes = hashes;
+        m = capacity;
+        keys = (Key[]) new Object[m];
+        values = (Value[]) new Object[m];
+        hashes = new int[m];
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                place(oldHashes[i], oldKeys[i], oldValues[i]);
             }
         }
-        keys = temp.keys;
-        values = temp.values;
-        m    = temp.m;
     }
 
     // return the value associated with key
     public Value contains(Key key)
     {
-        int k = hash(key);
-        while (keys[k] != null) {
-            if (keys[k].equals(key)) {
-                return values[k];
+        int k = find(key, hash(key));
+        if (k == -1) {
+            return null;
+        }
+        return values[k];
+    }
+
+    // start counting resizes and collisions; see HTStats
+    public void enableStats()
+    {
+        if (stats == null) stats = new HTStats("probe length");
+    }
+
+    // statistics of the table, with the number of slots a search for every key
+    // probes measured now; null if enableStats() has not been called
+    public HTStats stats()
+    {
+        if (stats == null) return null;
+        stats.clearLengths();
+        for (int k = 0; k < m; k++) {
+            if (keys[k] != null) {
+                stats.record(distance(k) + 1);
+            }
+        }
+        return stats;
+    }
+
+    public void printStats()
+    {
+        HTStats s = stats();
+        if (s == null) {
+            System.out.println("statistics are not enabled");
+            return;
+        }
+        s.print();
+    }
+
+    // iterate over the keys of the table, in slot order
+    // the table must not be changed while the iteration is in progress
+    public Iterable<Key> keys()
+    {
+        return () -> new Iterator<Key>() {
+            private int k = 0;      // next slot to look at
+
+            public boolean hasNext() {
+                while (k < m && keys[k] == null) {
+                    k++;
+                }
+                return k < m;
+            }
+
+            public Key next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return keys[k++];
+            }
+        };
+    }
+
+    // pass every key of the table and its value to action, in slot order
+    public void forEach(BiConsumer<? super Key, ? super Value> action)
+    {
+        for (int j = 0; j < m; j++) {
+            if (keys[j] != null) {
+                action.accept(keys[j], values[j]);
             }
-            k = hashL(k, 1);
         }
-        return null;
     }
 
     // print hash table 
     void print()
     {
         for (int j=0; j<m; j++) {
-            if (T[j] == null) {
+            if (keys[j] == null) {
                 System.out.println("T["+j+"]=");
                 continue;
             }
-            System.out.println("T["+j+"]=" + "(" + T[j].key + "," + T[j].value + ") ");
+            System.out.println("T["+j+"]=" + "(" + keys[j] + "," + values[j] + ") ");
         }
     }
 
@@ -108,7 +267,11 @@ public class LinearProbingHT<Key,Value> {
         System.out.println("Test Hash Table with Linear Probing");
 
         int M = 3000; // initial hash table size
-        LinearProbingHT T = new LinearProbingHT<String,Integer>(M);
+        boolean stats = Arrays.asList(args).contains("-stats");
+        LinearProbingHT T = new LinearProbingHT<String,Integer>(M, Arrays.asList(args).contains("-seeded"));
+        if (stats) {
+            T.enableStats();
+        }
         
         In.init();
         long startTime = System.currentTimeMillis();
@@ -138,6 +301,12 @@ public class LinearProbingHT<Key,Value> {
         System.out.println("contains 'the' " + T.contains("the") + " times");
         System.out.println("contains 'train' " + T.contains("train") + " times");
         System.out.println("contains 'wondered' " + T.contains("wondered") + " times");
+        if (stats) {
+            T.printStats();
+        }
+
+        T.delete("the");
+        System.out.println("after delete: contains 'the' " + T.contains("the") + " times, number of words = " + T.words());
         
         endTime = System.currentTimeMillis();
         long totalTime = endTime - startTime;
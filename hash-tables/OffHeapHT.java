@@ -0,0 +1,374 @@
+import java.io.*;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+
+// hash table that maps strings to int counts and keeps all of its data outside the java heap
+//
+// the slots live in direct ByteBuffers (pages) and the UTF-8 bytes of the keys in an arena of
+// direct ByteBuffers (chunks), so a table with hundreds of millions of keys makes no heap
+// objects per key and puts no load on the garbage collector. a slot is 16 bytes:
+//      int hash, int count, long reference to the key in the arena (0 if the slot is empty)
+// and a key in the arena is stored as an int length followed by its bytes. the table uses
+// linear probing with power of two size; the memory is given back by close()
+//
+// a key is encoded into a scratch array that the table reuses, so looking a key up allocates
+// nothing either; for the same reason even contains() must not run concurrently with another
+// call on the same table
+public class OffHeapHT implements AutoCloseable {
+
+    private static final int SLOT = 16;                 // bytes per slot
+    private static final int PAGE_BITS = 20;            // 2^20 slots (16 MB) per page
+    private static final int PAGE_SLOTS = 1 << PAGE_BITS;
+    private static final int CHUNK = 1 << 20;           // bytes per arena chunk
+    private static final int MAX_LOAD = 75;             // grow when an insert would exceed this load factor
+    private static final int MIN_SIZE = 16;
+
+    private long m;                 // hash table size, a power of two
+    private long n;                 // number of distinct keys inserted
+    private ByteBuffer[] pages;     // slot i is at (i % PAGE_SLOTS) * SLOT of pages[i / PAGE_SLOTS]
+    private ArrayList<ByteBuffer> chunks = new ArrayList<ByteBuffer>();    // the arena
+    private ByteBuffer chunk;       // chunk that new keys are appended to
+    private long offHeap;           // bytes allocated outside the heap
+
+    private byte[] buf = new byte[64];  // UTF-8 bytes of the key being looked up
+    private int len;                    // number of bytes of that key
+
+    // constructor: initialize empty hash table with room for M slots,
+    // rounded up to a power of two
+    OffHeapHT(long M) {
+        m = MIN_SIZE;
+        while (m < M) {
+            m *= 2;
+        }
+        n = 0;
+        pages = newPages(m);
+    }
+
+    private ByteBuffer allocate(int bytes) {
+        offHeap += bytes;
+        return ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder());
+    }
+
+    // zero-filled pages for size slots
+    private ByteBuffer[] newPages(long size) {
+        int count = (int) ((size + PAGE_SLOTS - 1) >>> PAGE_BITS);
+        ByteBuffer[] p = new ByteBuffer[count];
+        for (int i = 0; i < count; i++) {
+            p[i] = allocate((int) Math.min(size, PAGE_SLOTS) * SLOT);
+        }
+        return p;
+    }
+
+    // encode key in UTF-8 into buf, as String.getBytes would: a surrogate that is not part
+    // of a pair becomes '?'
+    private void encode(String key) {
+        int k = key.length();
+        if (buf.length < 3 * k) {   // no char takes more than 3 bytes; a pair takes 4
+            buf = new byte[Math.max(3 * k, 2 * buf.length)];
+        }
+        int b = 0;
+        for (int j = 0; j < k; j++) {
+            char c = key.charAt(j);
+            if (c < 0x80) {
+                buf[b++] = (byte) c;
+            } else if (c < 0x800) {
+                buf[b++] = (byte) (0xc0 | c >> 6);
+                buf[b++] = (byte) (0x80 | c & 0x3f);
+            } else if (Character.isSurrogate(c)) {
+                if (Character.isHighSurrogate(c) && j + 1 < k && Character.isLowSurrogate(key.charAt(j + 1))) {
+                    int cp = Character.toCodePoint(c, key.charAt(++j));
+                    buf[b++] = (byte) (0xf0 | cp >> 18);
+                    buf[b++] = (byte) (0x80 | cp >> 12 & 0x3f);
+                    buf[b++] = (byte) (0x80 | cp >> 6 & 0x3f);
+                    buf[b++] = (byte) (0x80 | cp & 0x3f);
+                } else {
+                    buf[b++] = '?';
+                }
+            } else {
+                buf[b++] = (byte) (0xe0 | c >> 12);
+                buf[b++] = (byte) (0x80 | c >> 6 & 0x3f);
+                buf[b++] = (byte) (0x80 | c & 0x3f);
+            }
+        }
+        len = b;
+    }
+
+    // hash of the bytes in buf (FNV-1a), with the high bits folded in
+    private int hash() {
+        int h = 0x811c9dc5;
+        for (int j = 0; j < len; j++) {
+            h = (h ^ (buf[j] & 0xff)) * 0x01000193;
+        }
+        return h ^ (h >>> 16);
+    }
+
+    private void checkOpen() {
+        if (pages == null) {
+            throw new IllegalStateException("hash table is closed");
+        }
+    }
+
+    public long words() {
+        return n;
+    }
+
+    public double loadFactor() {
+        return (double) 100 * n / m;
+    }
+
+    // bytes allocated outside the heap by this table
+    public long offHeapBytes() {
+        return offHeap;
+    }
+
+    private ByteBuffer page(long i) {
+        return pages[(int) (i >>> PAGE_BITS)];
+    }
+
+    private static int position(long i) {
+        return (int) (i & (PAGE_SLOTS - 1)) * SLOT;
+    }
+
+    // does the key at reference ref of the arena equal the key in buf
+    private boolean equal(long ref) {
+        ByteBuffer c = chunks.get((int) (ref >>> 32) - 1);
+        int p = (int) ref;
+        if (c.getInt(p) != len) {
+            return false;
+        }
+        p += 4;
+        for (int j = 0; j < len; j++) {
+            if (c.get(p + j) != buf[j]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // slot of the key in buf, or of the empty slot where it would be inserted
+    private long slot(int h) {
+        long i = h & (m - 1);
+        while (true) {
+            ByteBuffer p = page(i);
+            int q = position(i);
+            long ref = p.getLong(q + 8);
+            if (ref == 0 || (p.getInt(q) == h && equal(ref))) {
+                return i;
+            }
+            i = (i + 1) & (m - 1);
+        }
+    }
+
+    // copy the key in buf into the arena and return its reference: the chunk number plus
+    // one in the high 32 bits and the position in the chunk in the low 32 bits
+    private long store() {
+        int need = 4 + len;
+        if (chunk == null || chunk.remaining() < need) {
+            chunk = allocate(Math.max(CHUNK, need));
+            chunks.add(chunk);
+        }
+        int p = chunk.position();
+        chunk.putInt(len);
+        chunk.put(buf, 0, len);
+        return ((long) chunks.size() << 32) | p;
+    }
+
+    // add delta to the count of key, inserting key with count delta if it is new;
+    // return the new count
+    public int increment(String key, int delta) {
+        checkOpen();
+        encode(key);
+        int h = hash();
+        long i = slot(h);
+        ByteBuffer p = page(i);
+        int q = position(i);
+        if (p.getLong(q + 8) != 0) {
+            int count = p.getInt(q + 4) + delta;
+            p.putInt(q + 4, count);
+            return count;
+        }
+        add(i, h, delta);
+        return delta;
+    }
+
+    // set the count of key
+    public void insert(String key, int count) {
+        checkOpen();
+        encode(key);
+        int h = hash();
+        long i = slot(h);
+        if (page(i).getLong(position(i) + 8) != 0) {
+            page(i).putInt(position(i) + 4, count);
+        } else {
+            add(i, h, count);
+        }
+    }
+
+    // add the key in buf, whose hash is h, with the given count; i is the empty slot
+    // that slot(h) found for it
+    private void add(long i, int h, int count) {
+        if (100 * (n + 1) > MAX_LOAD * m) {
+            resize(2 * m);
+            i = slot(h);
+        }
+        ByteBuffer p = page(i);
+        int q = position(i);
+        p.putInt(q, h);
+        p.putInt(q + 4, count);
+        p.putLong(q + 8, store());
+        n++;
+    }
+
+    // return the count of key, 0 if key is not in the table
+    public int contains(String key) {
+        checkOpen();
+        encode(key);
+        long i = slot(hash());
+        ByteBuffer p = page(i);
+        int q = position(i);
+        return p.getLong(q + 8) == 0 ? 0 : p.getInt(q + 4);
+    }
+
+    // method to resize the hash table; the slots are copied with their hashes and
+    // references, so neither a key nor its bytes are touched
+    private void resize(long capacity) {
+        ByteBuffer[] old = pages;
+        long oldM = m;
+        m = capacity;
+        pages = newPages(m);
+        for (long j = 0; j < oldM; j++) {
+            ByteBuffer p = old[(int) (j >>> PAGE_BITS)];
+            int q = position(j);
+            long ref = p.getLong(q + 8);
+            if (ref != 0) {
+                int h = p.getInt(q);
+                long i = h & (m - 1);
+                while (page(i).getLong(position(i) + 8) != 0) {
+                    i = (i + 1) & (m - 1);
+                }
+                page(i).putInt(position(i), h);
+                page(i).putInt(position(i) + 4, p.getInt(q + 4));
+                page(i).putLong(position(i) + 8, ref);
+            }
+        }
+        for (ByteBuffer p : old) {
+            free(p);
+        }
+    }
+
+    // key in slot i
+    private String key(long i) {
+        long ref = page(i).getLong(position(i) + 8);
+        ByteBuffer c = chunks.get((int) (ref >>> 32) - 1);
+        byte[] k = new byte[c.getInt((int) ref)];
+        c.get((int) ref + 4, k);
+        return new String(k, StandardCharsets.UTF_8);
+    }
+
+    // print hash table
+    void print() {
+        checkOpen();
+        for (long j = 0; j < m; j++) {
+            if (page(j).getLong(position(j) + 8) == 0) {
+                System.out.println("T[" + j + "]=");
+                continue;
+            }
+            System.out.println("T[" + j + "]=" + "(" + key(j) + "," + page(j).getInt(position(j) + 4) + ") ");
+        }
+    }
+
+    // give the memory of the table back; the table cannot be used afterwards
+    // close() drops every reference to the buffers, so their memory is released even where
+    // free() cannot release it at once: the garbage collector then frees it with the buffers
+    @Override
+    public void close() {
+        if (pages == null) {
+            return;
+        }
+        for (ByteBuffer p : pages) {
+            free(p);
+        }
+        for (ByteBuffer c : chunks) {
+            free(c);
+        }
+        pages = null;
+        chunks = null;
+        chunk = null;
+        offHeap = 0;
+    }
+
+    // Unsafe.invokeCleaner frees a direct buffer at once. it is not a public API: on a JDK
+    // that lacks it or denies reflective access to sun.misc.Unsafe, INVOKE_CLEANER is null and
+    // free() only stops counting the buffer, whose memory the garbage collector releases once
+    // the table no longer references it (see close()). nothing depends on the cleaner
+    private static final Object UNSAFE;
+    private static final Method INVOKE_CLEANER;
+
+    static {
+        Object unsafe = null;
+        Method invokeCleaner = null;
+        try {
+            Class<?> c = Class.forName("sun.misc.Unsafe");
+            Field f = c.getDeclaredField("theUnsafe");
+            f.setAccessible(true);
+            unsafe = f.get(null);
+            invokeCleaner = c.getMethod("invokeCleaner", ByteBuffer.class);
+        } catch (ReflectiveOperationException | RuntimeException e) {
+            unsafe = null;
+            invokeCleaner = null;
+        }
+        UNSAFE = unsafe;
+        INVOKE_CLEANER = invokeCleaner;
+    }
+
+    private void free(ByteBuffer buffer) {
+        offHeap -= buffer.capacity();
+        if (INVOKE_CLEANER != null) {
+            try {
+                INVOKE_CLEANER.invoke(UNSAFE, buffer);
+            } catch (ReflectiveOperationException e) {
+                // leave it to the garbage collector
+            }
+        }
+    }
+
+    public static void main(String[] args) {
+        System.out.println("Test Off-Heap Hash Table");
+
+        int M = 3000; // initial hash table size
+        OffHeapHT T = new OffHeapHT(M);
+
+        In.init();
+        long startTime = System.currentTimeMillis();
+        while (!In.empty()) {
+            T.increment(In.getString(), 1);
+        }
+        //T.print();
+        long endTime = System.currentTimeMillis();
+        long chtTime = endTime - startTime;
+        System.out.println("construction time = " + chtTime);
+        System.out.println("load factor = " + T.loadFactor());
+        System.out.println("off-heap bytes = " + T.offHeapBytes());
+
+        System.out.println("number of words = " + T.words());
+
+        System.out.println("contains 'and' " + T.contains("and") + " times");
+        System.out.println("contains 'astonished' " + T.contains("astonished") + " times");
+        System.out.println("contains 'boat' " + T.contains("boat") + " times");
+        System.out.println("contains 'carol' " + T.contains("carol") + " times");
+        System.out.println("contains 'city' " + T.contains("city") + " times");
+        System.out.println("contains 'scrooge' " + T.contains("scrooge") + " times");
+        System.out.println("contains 'the' " + T.contains("the") + " times");
+        System.out.println("contains 'train' " + T.contains("train") + " times");
+        System.out.println("contains 'wondered' " + T.contains("wondered") + " times");
+
+        T.close();
+        endTime = System.currentTimeMillis();
+        long totalTime = endTime - startTime;
+        System.out.println("total running time = " + totalTime);
+    }
+}
@@ -0,0 +1,160 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// counts the words of a large text file on several threads
+//
+// the file is split into byte ranges (shards) that begin at whitespace, so no word is cut
+// in two; every shard is memory-mapped, tokenized like In does and counted into a
+// CountingHT of its own, and the shard tables are merged at the end
+//
+// a mapping is limited to 2 GB: the file is first cut into pieces of at most MAX_SHARD bytes,
+// and every cut is then moved forward to the next whitespace, but by no more than MAX_SCAN
+// bytes, so no shard is longer than MAX_SHARD + MAX_SCAN < 2 GB. a file with a word too long
+// for that is rejected with an IOException
+public class ParallelWordCount {
+
+    private static final long MAX_SHARD = 1L << 30;   // longest shard before its end is moved
+    private static final long MAX_SCAN = Integer.MAX_VALUE - MAX_SHARD;    // farthest a cut is moved
+    private static final boolean[] WHITESPACE = new boolean[256];
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            WHITESPACE[i] = Character.isWhitespace((char) i);
+        }
+    }
+
+    private ParallelWordCount() { }
+
+    // first position at or after pos that holds whitespace, or the file size;
+    // throws an IOException if there is none in the next MAX_SCAN bytes
+    private static long boundary(FileChannel in, long pos) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        long size = in.size();
+        long last = Math.min(size, pos + MAX_SCAN);
+        for (long p = pos; p < last; ) {
+            buffer.clear();
+            buffer.limit((int) Math.min(buffer.capacity(), last - p));
+            int read = in.read(buffer, p);
+            for (int i = 0; i < read; i++) {
+                if (WHITESPACE[buffer.get(i) & 0xff]) {
+                    return p + i;
+                }
+            }
+            p += read;
+        }
+        if (last < size) {
+            throw new IOException("no whitespace in the " + MAX_SCAN + " bytes after position " + pos
+                    + ": a word is too long to split the file");
+        }
+        return size;
+    }
+
+    // count the words in bytes [start, end) of the file
+    private static CountingHT<String> countShard(FileChannel in, long start, long end) throws IOException {
+        CountingHT<String> T = new CountingHT<String>(3000);
+        MappedByteBuffer buffer = in.map(FileChannel.MapMode.READ_ONLY, start, end - start);
+        byte[] token = new byte[64];
+        int limit = buffer.limit();
+        int i = 0;
+        while (i < limit) {
+            while (i < limit && WHITESPACE[buffer.get(i) & 0xff]) {
+                i++;
+            }
+            int first = i;
+            while (i < limit && !WHITESPACE[buffer.get(i) & 0xff]) {
+                i++;
+            }
+            int length = i - first;
+            if (length > 0) {
+                if (length > token.length) {
+                    token = new byte[Math.max(length, 2 * token.length)];
+                }
+                buffer.get(first, token, 0, length);
+                T.increment(new String(token, 0, length, StandardCharsets.ISO_8859_1), 1);
+            }
+        }
+        return T;
+    }
+
+    // count the words of a file using the given number of threads
+    public static CountingHT<String> count(String filename, int threads) throws IOException, InterruptedException {
+        if (threads < 1) {
+            throw new IllegalArgumentException("number of threads must be at least 1, not " + threads);
+        }
+        try (FileChannel in = FileChannel.open(Paths.get(filename), StandardOpenOption.READ)) {
+            long size = in.size();
+            int shards = (int) Math.max(threads, (size + MAX_SHARD - 1) / MAX_SHARD);
+            long[] bounds = new long[shards + 1];
+            for (int s = 1; s < shards; s++) {
+                bounds[s] = Math.max(bounds[s - 1], boundary(in, size * s / shards));
+            }
+            bounds[shards] = size;
+
+            ExecutorService pool = Executors.newFixedThreadPool(threads);
+            try {
+                List<Callable<CountingHT<String>>> tasks = new ArrayList<Callable<CountingHT<String>>>();
+                for (int s = 0; s < shards; s++) {
+                    long start = bounds[s];
+                    long end = bounds[s + 1];
+                    tasks.add(() -> countShard(in, start, end));
+                }
+                CountingHT<String> T = null;
+                for (Future<CountingHT<String>> f : pool.invokeAll(tasks)) {
+                    if (T == null) {
+                        T = f.get();
+                    } else {
+                        T.merge(f.get());
+                    }
+                }
+                return T;
+            } catch (ExecutionException e) {
+                throw new IOException(e.getCause());
+            } finally {
+                pool.shutdown();
+            }
+        }
+    }
+
+    // usage: java ParallelWordCount file [threads]
+    public static void main(String[] args) throws IOException, InterruptedException {
+        System.out.println("Test Parallel Word Count");
+
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        System.out.println("threads = " + threads);
+
+        long startTime = System.currentTimeMillis();
+        CountingHT<String> T = count(args[0], threads);
+        long endTime = System.currentTimeMillis();
+        long chtTime = endTime - startTime;
+        System.out.println("construction time = " + chtTime);
+        System.out.println("load factor = " + T.loadFactor());
+
+        System.out.println("number of words = " + T.words());
+
+        System.out.println("contains 'and' " + T.contains("and") + " times");
+        System.out.println("contains 'astonished' " + T.contains("astonished") + " times");
+        System.out.println("contains 'boat' " + T.contains("boat") + " times");
+        System.out.println("contains 'carol' " + T.contains("carol") + " times");
+        System.out.println("contains 'city' " + T.contains("city") + " times");
+        System.out.println("contains 'scrooge' " + T.contains("scrooge") + " times");
+        System.out.println("contains 'the' " + T.contains("the") + " times");
+        System.out.println("contains 'train' " + T.contains("train") + " times");
+        System.out.println("contains 'wondered' " + T.contains("wondered") + " times");
+
+        endTime = System.currentTimeMillis();
+        long totalTime = endTime - startTime;
+        System.out.println("total running time = " + totalTime);
+    }
+}
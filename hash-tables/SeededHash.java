@@ -0,0 +1,108 @@
+import java.security.SecureRandom;
+import java.util.HashSet;
+
+// hash functions keyed by a secret random seed
+//
+// String.hashCode() is fixed by its specification, so anyone can compute many words with the
+// same hash code and make the chains or probe sequences of a table as long as the input.
+// a table that hashes with a seed it picked at random makes such inputs impossible to build
+// in advance: strings are hashed from their characters with a wyhash-style mix of the seed,
+// and other keys by mixing their hashCode() with the seed (keys whose hashCode() values are
+// equal still collide; ChainingHT turns such long chains into trees)
+public class SeededHash {
+
+    private static final long P0 = 0xa0761d6478bd642fL;
+    private static final long P1 = 0xe7037ed1a0b428dbL;
+    private static final long P2 = 0x8ebc6af09c88c6e3L;
+
+    private static final SecureRandom RANDOM = new SecureRandom();
+
+    private SeededHash() { }
+
+    // a new random seed
+    public static long newSeed() {
+        return RANDOM.nextLong();
+    }
+
+    // hash of key under seed
+    public static int hash(Object key, long seed) {
+        if (key instanceof String) {
+            return hash((String) key, seed);
+        }
+        long h = fmix(key.hashCode() ^ seed);
+        return (int) (h ^ (h >>> 32));
+    }
+
+    // hash of the characters of s, four at a time, under seed
+    // every block of characters is combined with a secret derived from the seed before it is
+    // multiplied: with a public constant instead, a block equal to that constant would zero
+    // the multiplicand and reset the state, making keys that collide under every seed
+    public static int hash(String s, long seed) {
+        int n = s.length();
+        long secret = fmix(seed) ^ P1;
+        long h = seed ^ P0;
+        int i = 0;
+        for (; i + 4 <= n; i += 4) {
+            long w = s.charAt(i) | (long) s.charAt(i + 1) << 16
+                    | (long) s.charAt(i + 2) << 32 | (long) s.charAt(i + 3) << 48;
+            h = mum(w ^ secret, h ^ P0);
+        }
+        if (i < n) {
+            long w = 0;
+            for (int shift = 0; i < n; i++, shift += 16) {
+                w |= (long) s.charAt(i) << shift;
+            }
+            h = mum(w ^ secret, h ^ P0);
+        }
+        h = mum(h ^ n, seed ^ P2);
+        return (int) (h ^ (h >>> 32));
+    }
+
+    // multiply a and b and fold the 128-bit product into 64 bits
+    private static long mum(long a, long b) {
+        return (a * b) ^ Math.multiplyHigh(a, b);
+    }
+
+    // finalizer of MurmurHash3: every bit of h affects every bit of the result
+    private static long fmix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        return h ^ (h >>> 33);
+    }
+
+    // regression check: keys that differ in their first block and share a block equal to P1
+    // used to have one hash under every seed; they must now spread like any other keys
+    public static void main(String[] args) {
+        System.out.println("Test Seeded Hash");
+
+        String block = "" + (char) (P1 & 0xffff) + (char) (P1 >>> 16 & 0xffff)
+                + (char) (P1 >>> 32 & 0xffff) + (char) (P1 >>> 48);
+        int K = 20000;
+        String[] keys = new String[K];
+        for (int i = 0; i < K; i++) {
+            keys[i] = String.format("%04x", i) + block + "zz";
+        }
+
+        boolean ok = true;
+        for (int t = 0; t < 3; t++) {
+            long seed = newSeed();
+            HashSet<Integer> hashes = new HashSet<Integer>();
+            for (String key : keys) {
+                hashes.add(hash(key, seed));
+            }
+            System.out.println("distinct hashes of " + K + " keys = " + hashes.size());
+            ok &= hashes.size() > K - 10;
+        }
+
+        long startTime = System.currentTimeMillis();
+        LinearProbingHT<String,Integer> T = new LinearProbingHT<String,Integer>(16, true);
+        for (int i = 0; i < K; i++) {
+            T.insert(keys[i], i);
+        }
+        long endTime = System.currentTimeMillis();
+        System.out.println("seeded linear probing construction time = " + (endTime - startTime));
+        System.out.println(ok ? "ok" : "FAILED: the keys collide");
+    }
+}
@@ -0,0 +1,243 @@
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+
+// read-only hash table of word counts stored in a file
+//
+// write() saves a ChainingHT or LinearProbingHT from strings to integers as a ready-made
+// linear probing table, and open() maps that file into memory, so lookups can start at once
+// without reading the words or hashing them again. the file (little-endian) is
+//
+// header : magic, table size m (a power of two), number of keys n, unused (4 ints)
+// slots  : m records: int hash, int value, int key offset, int key length (-1 if empty)
+// keys   : the UTF-8 bytes of the keys, the offsets being relative to the start of this region
+//
+// the hash of a key is String.hashCode() with the high bits folded in, which the
+// specification of String fixes, so the file does not depend on the JVM that wrote it
+public class SnapshotHT {
+    private static final int MAGIC = 0x57435331;       // "WCS1"
+    private static final int HEADER_SIZE = 16;         // bytes
+    private static final int SLOT_SIZE = 16;           // bytes per slot
+
+    private final MappedByteBuffer buffer;
+    private final int m;        // hash table size, a power of two
+    private final int n;        // number of keys
+    private final int keysAt;   // position of the key region in the file
+
+    private SnapshotHT(MappedByteBuffer buffer, int m, int n) {
+        this.buffer = buffer;
+        this.m = m;
+        this.n = n;
+        keysAt = HEADER_SIZE + m * SLOT_SIZE;
+    }
+
+    private static int hash(String key) {
+        int h = key.hashCode();
+        return h ^ (h >>> 16);
+    }
+
+    // write the words and counts of T to file
+    public static void write(String file, ChainingHT<String,Integer> T) throws IOException {
+        write(file, T.words(), T::forEach);
+    }
+
+    // write the words and counts of T to file
+    public static void write(String file, LinearProbingHT<String,Integer> T) throws IOException {
+        write(file, T.words(), T::forEach);
+    }
+
+    // write the n words and counts that table passes, each word with its count, to the
+    // action it is given; the words are not looked up or hashed again to find their counts
+    private static void write(String file, int n, Consumer<BiConsumer<String,Integer>> table) throws IOException {
+        String[] keys = new String[n];
+        int[] values = new int[n];
+        int[] i = { 0 };
+        table.accept((key, value) -> {
+            keys[i[0]] = key;
+            values[i[0]++] = value;
+        });
+        write(file, keys, values);
+    }
+
+    // write keys[i] with values[i] for every i; the table is at most half full
+    private static void write(String file, String[] keys, int[] values) throws IOException {
+        int m = 16;
+        while (m < 2 * keys.length) {
+            m *= 2;
+        }
+        byte[][] bytes = new byte[keys.length][];
+        long keyBytes = 0;
+        for (int i = 0; i < keys.length; i++) {
+            bytes[i] = keys[i].getBytes(StandardCharsets.UTF_8);
+            keyBytes += bytes[i].length;
+        }
+        // a single mapping is limited to 2 GB
+        if (HEADER_SIZE + (long) m * SLOT_SIZE + keyBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("too many keys for a snapshot");
+        }
+
+        ByteBuffer slots = ByteBuffer.allocate(m * SLOT_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        for (int k = 0; k < m; k++) {
+            slots.putInt(k * SLOT_SIZE + 12, -1);
+        }
+        int offset = 0;
+        for (int i = 0; i < keys.length; i++) {
+            int h = hash(keys[i]);
+            int k = h & (m - 1);
+            while (slots.getInt(k * SLOT_SIZE + 12) != -1) {
+                k = (k + 1) & (m - 1);
+            }
+            slots.putInt(k * SLOT_SIZE, h);
+            slots.putInt(k * SLOT_SIZE + 4, values[i]);
+            slots.putInt(k * SLOT_SIZE + 8, offset);
+            slots.putInt(k * SLOT_SIZE + 12, bytes[i].length);
+            offset += bytes[i].length;
+        }
+
+        try (FileChannel out = FileChannel.open(Paths.get(file), StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(m).putInt(keys.length).putInt(0);
+            header.flip();
+            flush(out, header);
+            flush(out, slots);
+            ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+            for (byte[] b : bytes) {
+                if (buffer.remaining() < b.length) {
+                    buffer.flip();
+                    flush(out, buffer);
+                    buffer.clear();
+                }
+                if (b.length > buffer.capacity()) {
+                    flush(out, ByteBuffer.wrap(b));
+                } else {
+                    buffer.put(b);
+                }
+            }
+            buffer.flip();
+            flush(out, buffer);
+        }
+    }
+
+    private static void flush(FileChannel out, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+    }
+
+    // map a file written by write() into memory
+    public static SnapshotHT open(String file) throws IOException {
+        try (FileChannel in = FileChannel.open(Paths.get(file), StandardOpenOption.READ)) {
+            if (in.size() < HEADER_SIZE || in.size() > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException(file + " is not a snapshot file");
+            }
+            MappedByteBuffer buffer = in.map(FileChannel.MapMode.READ_ONLY, 0, in.size());
+            buffer.order(ByteOrder.LITTLE_ENDIAN);
+            if (buffer.getInt(0) != MAGIC) {
+                throw new IllegalArgumentException(file + " is not a snapshot file");
+            }
+            int m = buffer.getInt(4);
+            int n = buffer.getInt(8);
+            if (Integer.bitCount(m) != 1 || in.size() < HEADER_SIZE + (long) m * SLOT_SIZE) {
+                throw new IllegalArgumentException(file + " is truncated");
+            }
+            return new SnapshotHT(buffer, m, n);
+        }
+    }
+
+    public int words() {
+        return n;
+    }
+
+    public double loadFactor() {
+        return (double) 100 * n / m;
+    }
+
+    // return the value associated with key
+    public Integer contains(String key) {
+        int h = hash(key);
+        byte[] b = null;
+        for (int k = h & (m - 1); ; k = (k + 1) & (m - 1)) {
+            int slot = HEADER_SIZE + k * SLOT_SIZE;
+            int length = buffer.getInt(slot + 12);
+            if (length == -1) {
+                return null;
+            }
+            if (buffer.getInt(slot) != h) {
+                continue;
+            }
+            if (b == null) {
+                b = key.getBytes(StandardCharsets.UTF_8);
+            }
+            if (length == b.length && equal(keysAt + buffer.getInt(slot + 8), b)) {
+                return buffer.getInt(slot + 4);
+            }
+        }
+    }
+
+    // do the bytes at position p of the file equal b
+    private boolean equal(int p, byte[] b) {
+        for (int j = 0; j < b.length; j++) {
+            if (buffer.get(p + j) != b[j]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // usage: java SnapshotHT write file < input
+    //        java SnapshotHT read file
+    public static void main(String[] args) throws IOException {
+        System.out.println("Test Snapshot Hash Table");
+
+        long startTime = System.currentTimeMillis();
+        if (args[0].equals("write")) {
+            int M = 3000; // initial hash table size
+            LinearProbingHT<String,Integer> T = new LinearProbingHT<String,Integer>(M);
+            In.init();
+            while (!In.empty()) {
+                String s = In.getString();
+                Integer count = T.contains(s);
+                if ( count != null ) {
+                    T.insert(s, count + 1);
+                } else {
+                    T.insert(s, 1);
+                }
+            }
+            write(args[1], T);
+            long endTime = System.currentTimeMillis();
+            System.out.println("construction and write time = " + (endTime - startTime));
+            System.out.println("number of words = " + T.words());
+            return;
+        }
+
+        SnapshotHT T = open(args[1]);
+        long endTime = System.currentTimeMillis();
+        long chtTime = endTime - startTime;
+        System.out.println("open time = " + chtTime);
+        System.out.println("load factor = " + T.loadFactor());
+
+        System.out.println("number of words = " + T.words());
+
+        System.out.println("contains 'and' " + T.contains("and") + " times");
+        System.out.println("contains 'astonished' " + T.contains("astonished") + " times");
+        System.out.println("contains 'boat' " + T.contains("boat") + " times");
+        System.out.println("contains 'carol' " + T.contains("carol") + " times");
+        System.out.println("contains 'city' " + T.contains("city") + " times");
+        System.out.println("contains 'scrooge' " + T.contains("scrooge") + " times");
+        System.out.println("contains 'the' " + T.contains("the") + " times");
+        System.out.println("contains 'train' " + T.contains("train") + " times");
+        System.out.println("contains 'wondered' " + T.contains("wondered") + " times");
+
+        endTime = System.currentTimeMillis();
+        long totalTime = endTime - startTime;
+        System.out.println("total running time = " + totalTime);
+    }
+}
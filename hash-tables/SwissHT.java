@@ -0,0 +1,240 @@
+import java.io.*;
+import java.util.Arrays;
+
+// open-addressing hash table in the style of SwissTable
+//
+// the slots are split into groups of 8, and every slot has a control byte: EMPTY, DELETED,
+// or, for a full slot, the low 7 bits of the key's hash. the 8 control bytes of a group are
+// packed into one long, so a probe compares the 7-bit fragment against the whole group at
+// once with a few word operations (SWAR) and calls equals() only on the slots that match;
+// a probe ends at the first group that still has an EMPTY slot
+public class SwissHT<Key,Value> {
+
+    private static final int GROUP = 8;         // slots per group
+    private static final long LSB = 0x0101010101010101L;   // lowest bit of every byte
+    private static final long MSB = 0x8080808080808080L;   // highest bit of every byte
+    private static final int EMPTY = 0x80;      // control byte of an empty slot
+    private static final int DELETED = 0xFE;    // control byte of a deleted slot (tombstone)
+    private static final int MAX_LOAD = 875;    // per mille of slots that may be full or deleted
+
+    private int groups;         // number of groups, a power of two
+    private int n;              // number of distinct items inserted
+    private int deleted;        // number of tombstones
+    private long[] ctrl;        // ctrl[g] = control bytes of group g, slot 8g+i in byte i
+    private Key[] keys;
+    private Value[] values;
+
+    // constructor: initialize empty hash table with room for M slots,
+    // rounded up to a power of two number of groups
+    SwissHT(int M) {
+        groups = 2;
+        while (groups * GROUP < M) {
+            groups *= 2;
+        }
+        n = 0;
+        allocate();
+    }
+
+    private void allocate() {
+        ctrl = new long[groups];
+        Arrays.fill(ctrl, EMPTY * LSB);
+        keys = (Key[]) new Object[groups * GROUP];
+        values = (Value[]) new Object[groups * GROUP];
+        deleted = 0;
+    }
+
+    // hash function: hashCode() mixed so that both the group index (high bits)
+    // and the 7-bit fragment (low bits) depend on all of its bits
+    private int hash(Key key) {
+        int h = key.hashCode();
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        return h ^ (h >>> 16);
+    }
+
+    // bytes of word equal to fragment h2, as a mask with the high bit of each such byte set;
+    // a byte just above a true match may also be flagged, which equals() then rejects
+    private static long match(long word, int h2) {
+        long x = word ^ (LSB * h2);
+        return (x - LSB) & ~x & MSB;
+    }
+
+    // bytes of word that are EMPTY
+    private static long matchEmpty(long word) {
+        return word & ~(word << 6) & MSB;
+    }
+
+    // bytes of word that are EMPTY or DELETED
+    private static long matchFree(long word) {
+        return word & MSB;
+    }
+
+    // byte index of the lowest flagged byte of a match mask
+    private static int lowest(long bits) {
+        return Long.numberOfTrailingZeros(bits) >>> 3;
+    }
+
+    private void setCtrl(int slot, int c) {
+        int g = slot / GROUP;
+        int shift = 8 * (slot % GROUP);
+        ctrl[g] = (ctrl[g] & ~(0xFFL << shift)) | ((long) c << shift);
+    }
+
+    public int words() {
+        return n;
+    }
+
+    public double loadFactor() {
+        return (double) 100 * n / (groups * GROUP);
+    }
+
+    // slot of key, whose hash is h, or -1 if key is not in the table
+    // the groups are probed in triangular order g, g+1, g+3, g+6, ..., which visits every group
+    private int find(Key key, int h) {
+        int h2 = h & 0x7F;
+        int g = (h >>> 7) & (groups - 1);
+        for (int step = 1; ; step++) {
+            long word = ctrl[g];
+            for (long bits = match(word, h2); bits != 0; bits &= bits - 1) {
+                int slot = g * GROUP + lowest(bits);
+                if (key.equals(keys[slot])) {
+                    return slot;
+                }
+            }
+            if (matchEmpty(word) != 0) {
+                return -1;
+            }
+            g = (g + step) & (groups - 1);
+        }
+    }
+
+    // first EMPTY or DELETED slot on the probe sequence of hash h
+    private int freeSlot(int h) {
+        int g = (h >>> 7) & (groups - 1);
+        for (int step = 1; ; step++) {
+            long bits = matchFree(ctrl[g]);
+            if (bits != 0) {
+                return g * GROUP + lowest(bits);
+            }
+            g = (g + step) & (groups - 1);
+        }
+    }
+
+    // insert key with associated value
+    public void insert(Key key, Value value) {
+        int h = hash(key);
+        int slot = find(key, h);
+        if (slot != -1) {
+            values[slot] = value;
+            return;
+        }
+        if (1000L * (n + deleted + 1) > (long) MAX_LOAD * groups * GROUP) {
+            // reclaim the tombstones if they take much of the room, otherwise grow
+            resize(deleted > n / 2 ? groups : 2 * groups);
+        }
+        slot = freeSlot(h);
+        if ((ctrl[slot / GROUP] >>> (8 * (slot % GROUP)) & 0xFF) == DELETED) {
+            deleted--;
+        }
+        setCtrl(slot, h & 0x7F);
+        keys[slot] = key;
+        values[slot] = value;
+        n++;
+    }
+
+    // return the value associated with key
+    public Value contains(Key key) {
+        int slot = find(key, hash(key));
+        if (slot == -1) {
+            return null;
+        }
+        return values[slot];
+    }
+
+    // delete key and its value; the slot only becomes a tombstone if its group is full,
+    // because a probe may have passed through the group on its way to a later one
+    public void delete(Key key) {
+        int slot = find(key, hash(key));
+        if (slot == -1) {
+            return;
+        }
+        if (matchEmpty(ctrl[slot / GROUP]) != 0) {
+            setCtrl(slot, EMPTY);
+        } else {
+            setCtrl(slot, DELETED);
+            deleted++;
+        }
+        keys[slot] = null;
+        values[slot] = null;
+        n--;
+    }
+
+    // rebuild the table with the given number of groups, dropping the tombstones
+    private void resize(int capacity) {
+        Key[] oldKeys = keys;
+        Value[] oldValues = values;
+        groups = capacity;
+        allocate();
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] != null) {
+                int h = hash(oldKeys[j]);
+                int slot = freeSlot(h);
+                setCtrl(slot, h & 0x7F);
+                keys[slot] = oldKeys[j];
+                values[slot] = oldValues[j];
+            }
+        }
+    }
+
+    // print hash table
+    void print() {
+        for (int j = 0; j < groups * GROUP; j++) {
+            if (keys[j] == null) {
+                System.out.println("T[" + j + "]=");
+                continue;
+            }
+            System.out.println("T[" + j + "]=" + "(" + keys[j] + "," + values[j] + ") ");
+        }
+    }
+
+    public static void main(String[] args) {
+        System.out.println("Test Swiss Hash Table");
+
+        int M = 3000; // initial hash table size
+        SwissHT T = new SwissHT<String,Integer>(M);
+
+        In.init();
+        long startTime = System.currentTimeMillis();
+        while (!In.empty()) {
+            String s = In.getString();
+            Integer count = (Integer) T.contains(s);
+            if ( count != null ) {
+                T.insert(s, count + 1);
+            } else {
+                T.insert(s, 1);
+            }
+        }
+        //T.print();
+        long endTime = System.currentTimeMillis();
+        long chtTime = endTime - startTime;
+        System.out.println("construction time = " + chtTime);
+        System.out.println("load factor = " + T.loadFactor());
+
+        System.out.println("number of words = " + T.words());
+
+        System.out.println("contains 'and' " + T.contains("and") + " times");
+        System.out.println("contains 'astonished' " + T.contains("astonished") + " times");
+        System.out.println("contains 'boat' " + T.contains("boat") + " times");
+        System.out.println("contains 'carol' " + T.contains("carol") + " times");
+        System.out.println("contains 'city' " + T.contains("city") + " times");
+        System.out.println("contains 'scrooge' " + T.contains("scrooge") + " times");
+        System.out.println("contains 'the' " + T.contains("the") + " times");
+        System.out.println("contains 'train' " + T.contains("train") + " times");
+        System.out.println("contains 'wondered' " + T.contains("wondered") + " times");
+
+        endTime = System.currentTimeMillis();
+        long totalTime = endTime - startTime;
+        System.out.println("total running time = " + totalTime);
+    }
+}
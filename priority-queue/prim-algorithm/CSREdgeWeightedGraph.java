@@ -0,0 +1,145 @@
+import java.util.Iterator;
+
+// frozen edge-weighted graph in compressed sparse row (CSR) form
+//
+// the edges {v,x} adjacent to node v occupy positions offset[v] .. offset[v+1]-1
+// of the parallel arrays target[] (the other endpoint x) and weight[]; every
+// edge is stored twice, once for each endpoint, as in the adjacency lists of
+// EdgeWeightedGraph
+public class CSREdgeWeightedGraph
+{
+    private final int N;            // number of nodes
+    private final int M;            // number of edges
+    private final int[] offset;     // offset[v] = first position of v's edges
+    private final int[] target;     // target[i] = other endpoint of the edge at position i
+    private final double[] weight;  // weight[i] = weight of the edge at position i
+
+    CSREdgeWeightedGraph(int N, int M, int[] offset, int[] target, double[] weight)
+    {
+        this.N = N;
+        this.M = M;
+        this.offset = offset;
+        this.target = target;
+        this.weight = weight;
+    }
+
+    // freeze the adjacency lists of G into CSR form
+    public CSREdgeWeightedGraph(EdgeWeightedGraph G)
+    {
+        N = G.nodes();
+        M = G.edges();
+        offset = new int[N + 1];
+        for (int v = 0; v < N; v++)
+        {
+            int degree = 0;
+            for (Edge e : G.adj(v))
+                degree++;
+            offset[v + 1] = offset[v] + degree;
+        }
+        target = new int[offset[N]];
+        weight = new double[offset[N]];
+        for (int v = 0; v < N; v++)
+        {
+            int i = offset[v];
+            for (Edge e : G.adj(v))
+            {
+                target[i] = e.other(v);
+                weight[i] = e.weight();
+                i++;
+            }
+        }
+    }
+
+    // return the number of nodes
+    public int nodes()
+    {
+        return N;
+    }
+
+    // return the number of edges
+    public int edges()
+    {
+        return M;
+    }
+
+    // position of the first edge adjacent to node v
+    public int begin(int v)
+    {
+        return offset[v];
+    }
+
+    // position after the last edge adjacent to node v
+    public int end(int v)
+    {
+        return offset[v + 1];
+    }
+
+    // other endpoint of the edge at position i
+    public int target(int i)
+    {
+        return target[i];
+    }
+
+    // weight of the edge at position i
+    public double weight(int i)
+    {
+        return weight[i];
+    }
+
+    // edges {v,x} adjacent to node v; creates an Edge per step, so hot loops
+    // should use begin/end/target/weight instead
+    public Iterable<Edge> adj(int v)
+    {
+        return new Iterable<Edge>()
+        {
+            public Iterator<Edge> iterator()
+            {
+                return new Iterator<Edge>()
+                {
+                    private int i = offset[v];
+
+                    public boolean hasNext()
+                    {
+                        return i < offset[v + 1];
+                    }
+
+                    public Edge next()
+                    {
+                        Edge e = new Edge(v, target[i], weight[i]);
+                        i++;
+                        return e;
+                    }
+                };
+            }
+        };
+    }
+
+    public void printGraph()
+    {
+        System.out.println("adjacency lists; for each edge {u,v} with weight w it prints (v,w)");
+        for (int v=0; v<N; v++)
+        {
+            System.out.print(v + " : ");
+            for (int i = offset[v]; i < offset[v + 1]; i++)
+                System.out.print("(" + target[i] + ", " + weight[i] + ") ");
+            System.out.println("");
+        }
+    }
+
+    public static void main(String[] args)
+    {
+        In.init();
+        int N = In.getInt();
+        EdgeWeightedGraph G = new EdgeWeightedGraph(N);
+        int M = In.getInt();
+        for (int i=0; i<M; i++)
+        {
+            int v = In.getInt();
+            int w = In.getInt();
+            double weight = In.getDouble();
+            Edge e = new Edge(v,w,weight);
+            G.addEdge(e);
+        }
+        new CSREdgeWeightedGraph(G).printGraph();
+    }
+}
@@ -56,7 +56,72 @@ public class Prim {
         }
     }
 
-    public static void main(String[] args) {
+    // Prim's algorithm starting from vertex s on a graph in CSR form
+    private static void Prim(CSREdgeWeightedGraph G, int s) {
+
+        distTo = new double[G.nodes()];
+        marked = new boolean[G.nodes()];
+        PQ = new IndexMinPQ<Double>(G.nodes());
+
+        // initialization
+        for (int v = 0; v < G.nodes(); v++) {
+            distTo[v] = Double.POSITIVE_INFINITY;
+        }
+        distTo[s] = 0.0;
+        MSTweight = 0.0;
+        PQ.insert(s, distTo[s]);
+
+        // main loop
+        while (!PQ.isEmpty()) {
+            int v = PQ.delMin();    // vertex with minimum distance from the tree
+            MSTweight += distTo[v];
+            scan(G, v);             // process edges adjacent to v
+        }
+    }
+
+    // scan vertex v, walking its CSR range instead of Edge objects
+    private static void scan(CSREdgeWeightedGraph G, int v) {
+        marked[v] = true;
+        for (int i = G.begin(v); i < G.end(v); i++) {
+            int w = G.target(i);    // process edge {v,w}
+            if (marked[w]) {        // w is already on the tree
+                continue;           // {v,w} is obsolete edge
+            }
+            double weight = G.weight(i);
+            if (weight < distTo[w]) {
+                distTo[w] = weight;
+                if (PQ.contains(w)) {
+                    PQ.change(w, distTo[w]); // change w's key
+                } else {
+                    PQ.insert(w, distTo[w]); // insert w into PQ
+                }
+            }
+        }
+    }
+
+    // usage: java Prim [-csr] < graph.txt   or   java Prim graph.bin (see GraphFile)
+    // a binary graph is loaded straight into CSR form; -csr freezes a text graph into it
+    public static void main(String[] args) throws IOException {
+
+        boolean csr = false;
+        String binaryFile = null;
+        for (String arg : args) {
+            if (arg.equals("-csr")) {
+                csr = true;
+            } else {
+                binaryFile = arg;
+            }
+        }
+
+        if (binaryFile != null) {
+            CSREdgeWeightedGraph C = GraphFile.loadCSR(binaryFile);
+            long startTime = System.currentTimeMillis();
+            Prim(C, 1);
+            long endTime = System.currentTimeMillis();
+            System.out.println("total time = " + (endTime - startTime));
+            System.out.println("MST weight = " + MSTweight);
+            return;
+        }
 
         In.init();
         int N = In.getInt();
@@ -72,7 +137,11 @@ public class Prim {
         }
 
         long startTime = System.currentTimeMillis();
-        Prim(G, 1);
+        if (csr) {
+            Prim(new CSREdgeWeightedGraph(G), 1);
+        } else {
+            Prim(G, 1);
+        }
         long endTime = System.currentTimeMillis();
         long totalTime = endTime - startTime;
         System.out.println("total time = " + totalTime);
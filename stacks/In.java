@@ -1,32 +1,127 @@
 // Various input methods
 // Source :  R. Sedgewick, Algorithms in Java, parts 1-4
+// The input is read in large blocks into a byte buffer and every token is
+// collected in a reusable scratch array, so numbers are parsed directly
+// from the bytes without building an intermediate String.
 
 import java.io.*;
+import java.nio.charset.StandardCharsets;
 
 public class In {
 
-    private static int c;
+    private static final int BUFFER_SIZE = 1 << 20;     // 1 MB input blocks
+    private static final boolean[] WHITESPACE = new boolean[256];
+    private static final double[] POW10 = new double[23];  // exactly representable powers of 10
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            WHITESPACE[i] = Character.isWhitespace((char) i);
+        }
+        POW10[0] = 1.0;
+        for (int i = 1; i < POW10.length; i++) {
+            POW10[i] = 10.0 * POW10[i - 1];
+        }
+    }
+
+    private static InputStream in = System.in;
+    private static final byte[] buf = new byte[BUFFER_SIZE];  // input buffer
+    private static int pos;                 // position of the next byte in buf
+    private static int lim;                 // number of valid bytes in buf
+    private static byte[] token = new byte[64];  // scratch for the current token
+    private static int tokenLength;         // number of bytes in token
+    private static int c;                   // current byte, -1 at end of input
 
     private In() { }
-    
+
     private static boolean blank() {
-        return Character.isWhitespace((char) c);
+        return WHITESPACE[c];
     }
 
     private static void readC() {
+        if (pos == lim) {
+            try {
+                lim = in.read(buf, 0, BUFFER_SIZE);
+            } catch (IOException e) {
+                lim = -1;
+            }
+            pos = 0;
+            if (lim <= 0) {
+                lim = 0;
+                c = -1;
+                return;
+            }
+        }
+        c = buf[pos++] & 0xff;
+    }
+
+    private static void skipBlanks() {
+        while (!empty() && blank()) {
+            readC();
+        }
+    }
+
+    // copy the next token into the scratch array and skip the whitespace after it
+    private static void readToken() {
+        int n = 0;
+        while (!(empty() || blank())) {
+            if (n == token.length) {
+                byte[] t = new byte[2 * n];
+                System.arraycopy(token, 0, t, 0, n);
+                token = t;
+            }
+            token[n++] = (byte) c;
+            readC();
+        }
+        tokenLength = n;
+        skipBlanks();
+    }
+
+    private static String tokenString() {
+        return new String(token, 0, tokenLength, StandardCharsets.ISO_8859_1);
+    }
+
+    // initialize input stream
+    public static void init() {
+        init(System.in);
+    }
+
+    // initialize input stream to read from the given file; close() or the next init()
+    // closes it again
+    public static void init(String filename) {
         try {
-            c = System.in.read();
+            init(new FileInputStream(filename));
+        } catch (FileNotFoundException e) {
+            throw new IllegalArgumentException("cannot open " + filename, e);
+        }
+    }
+
+    // close the file opened by init(String), if any; standard input is left open
+    public static void close() {
+        if (in == System.in) {
+            return;
+        }
+        try {
+            in.close();
         } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            in = System.in;
+            pos = 0;
+            lim = 0;
             c = -1;
         }
     }
 
-    // initialize input stream
-    public static void init() {
+    private static void init(InputStream stream) {
+        close();
+        in = stream;
+        pos = 0;
+        lim = 0;
         readC();
+        skipBlanks();
     }
 
-     // check if input stream is empty
+    // check if input stream is empty
     public static boolean empty() {
         return c == -1;
     }
@@ -36,29 +131,87 @@ public class In {
         if (empty()) {
             return null;
         }
-        String s = "";
-        while (!(empty() || blank())) {
-            s += (char) c;
-            readC();
-        }
-        while (!empty() && blank()) {
-            readC();
-        }
-        return s;
+        readToken();
+        return tokenString();
     }
 
     // read integer from input stream
     public static int getInt() {
-        return Integer.parseInt(getString());
+        long x = getLong();
+        if (x != (int) x) {
+            throw new NumberFormatException("For input string: \"" + tokenString() + "\"");
+        }
+        return (int) x;
     }
 
     // read long integer from input stream
     public static long getLong() {
-        return Long.parseLong(getString());
+        if (empty()) {
+            return Long.parseLong(null);
+        }
+        readToken();
+        int i = 0;
+        boolean negative = false;
+        if (tokenLength > 0 && (token[0] == '-' || token[0] == '+')) {
+            negative = token[0] == '-';
+            i++;
+        }
+        // 18 digits always fit in a long; anything longer takes the slow path
+        if (i == tokenLength || tokenLength - i > 18) {
+            return Long.parseLong(tokenString());
+        }
+        long x = 0;
+        for (; i < tokenLength; i++) {
+            int d = token[i] - '0';
+            if (d < 0 || d > 9) {
+                return Long.parseLong(tokenString());
+            }
+            x = 10 * x + d;
+        }
+        return negative ? -x : x;
     }
 
     // read double from input stream
     public static double getDouble() {
-        return Double.parseDouble(getString());
+        if (empty()) {
+            return Double.parseDouble(null);
+        }
+        readToken();
+        int i = 0;
+        boolean negative = false;
+        if (tokenLength > 0 && (token[0] == '-' || token[0] == '+')) {
+            negative = token[0] == '-';
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int scale = -1;     // number of digits after the decimal point, -1 if there is none
+        for (; i < tokenLength; i++) {
+            int b = token[i];
+            if (b == '.' && scale < 0) {
+                scale = 0;
+                continue;
+            }
+            int d = b - '0';
+            if (d < 0 || d > 9 || ++digits > 18) {
+                return Double.parseDouble(tokenString());  // exponents, NaN, long mantissas, errors
+            }
+            mantissa = 10 * mantissa + d;
+            if (scale >= 0) {
+                scale++;
+            }
+        }
+        if (digits == 0) {
+            return Double.parseDouble(tokenString());
+        }
+        if (scale < 0) {
+            scale = 0;
+        }
+        // both operands are exact doubles, so the division is correctly rounded
+        if (mantissa >= (1L << 53) || scale >= POW10.length) {
+            return Double.parseDouble(tokenString());
+        }
+        double x = mantissa / POW10[scale];
+        return negative ? -x : x;
     }
 }
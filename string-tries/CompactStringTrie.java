@@ -0,0 +1,380 @@
+import java.io.*;
+import java.util.Arrays;
+
+// trie of words over 'a'..'z' that stores its nodes in a few int arrays
+//
+// only the letters 'a'..'z' can be stored: insert() throws an IllegalArgumentException for a
+// word with any other character, and a search for such a word finds nothing
+//
+// a StringTrie node holds an array of R links, most of them null. here a node is an index
+// into parallel arrays, and its children are listed in a shared pool in alphabetical order,
+// with no room for the missing ones: bitmap[x] has bit j set if x has a child for character
+// 'a' + j, and that child is child[base[x] + (number of bits of bitmap[x] below bit j)].
+// the block of children of a node has room for a power of two children; when it fills up the
+// node moves to a block twice as large, and when deletes leave it half full the node moves back
+// to a block half as large. so a node with k children always has a block of size class
+// sizeClass(k), and its old block can be kept in the free list for its size, as are the nodes
+// that delete() removes
+public class CompactStringTrie {
+
+    private static final int R = 26;        // number of different characters
+    private static final int CLASSES = 6;   // block sizes 1, 2, 4, 8, 16, 32
+    private static final int NONE = -1;     // end of a free list
+    private static final int ROOT = 0;
+
+    private int[] bitmap = new int[16];     // bitmap[x] = characters that x has a child for
+    private int[] base = new int[16];       // base[x] = first slot of the block of children of x
+    private int[] count = new int[16];      // count[x] = occurrences of the word ending at x, 0 if none
+    private int nodes = 1;                  // nodes 0 .. nodes-1 have been used
+    private int freeNode = NONE;            // first deleted node; base[] links the others
+
+    private int[] child = new int[64];      // pool of blocks of children
+    private int used = 0;                   // slots 0 .. used-1 of child have been handed out
+    private int[] freeBlock = new int[CLASSES];     // first free block of each size; its first slot links the others
+
+    private int N = 0;  // number of words in trie
+
+    /* auxiliary class: stores a word s and its number of occurrences */
+    private static class Item {
+         private String s;
+         private int count;
+    }
+
+    CompactStringTrie() {
+        Arrays.fill(freeBlock, NONE);
+        base[ROOT] = NONE;
+    }
+
+    // size class of a block that holds k children
+    private static int sizeClass(int k) {
+        return 32 - Integer.numberOfLeadingZeros(k - 1);
+    }
+
+    // a free block of size 2^c
+    private int allocateBlock(int c) {
+        if (freeBlock[c] != NONE) {
+            int b = freeBlock[c];
+            freeBlock[c] = child[b];
+            return b;
+        }
+        int size = 1 << c;
+        while (used + size > child.length) {
+            child = Arrays.copyOf(child, 2 * child.length);
+        }
+        int b = used;
+        used += size;
+        return b;
+    }
+
+    private void freeBlock(int b, int c) {
+        child[b] = freeBlock[c];
+        freeBlock[c] = b;
+    }
+
+    // a new node with no children and no word
+    private int allocateNode() {
+        int x;
+        if (freeNode != NONE) {
+            x = freeNode;
+            freeNode = base[x];
+        } else {
+            if (nodes == bitmap.length) {
+                bitmap = Arrays.copyOf(bitmap, 2 * nodes);
+                base = Arrays.copyOf(base, 2 * nodes);
+                count = Arrays.copyOf(count, 2 * nodes);
+            }
+            x = nodes++;
+        }
+        bitmap[x] = 0;
+        base[x] = NONE;
+        count[x] = 0;
+        return x;
+    }
+
+    private void freeNode(int x) {
+        base[x] = freeNode;
+        freeNode = x;
+    }
+
+    // child of x for character c, or NONE
+    private int next(int x, char c) {
+        int j = c - 'a';
+        if (j < 0 || j >= R || (bitmap[x] & (1 << j)) == 0) {
+            return NONE;
+        }
+        return child[base[x] + Integer.bitCount(bitmap[x] & ((1 << j) - 1))];
+    }
+
+    // add to x the child y for character index j, which x does not have
+    private void addChild(int x, int j, int y) {
+        int k = Integer.bitCount(bitmap[x]);   // children of x so far
+        int p = Integer.bitCount(bitmap[x] & ((1 << j) - 1));   // position of the new child
+        if (k == 0) {
+            base[x] = allocateBlock(0);
+        } else if ((k & (k - 1)) == 0) {
+            // the block is full: move the children to a block twice as large
+            int b = allocateBlock(sizeClass(k) + 1);
+            System.arraycopy(child, base[x], child, b, k);
+            freeBlock(base[x], sizeClass(k));
+            base[x] = b;
+        }
+        int b = base[x];
+        System.arraycopy(child, b + p, child, b + p + 1, k - p);
+        child[b + p] = y;
+        bitmap[x] |= 1 << j;
+    }
+
+    // remove from x its child for character index j
+    private void removeChild(int x, int j) {
+        int k = Integer.bitCount(bitmap[x]);
+        int p = Integer.bitCount(bitmap[x] & ((1 << j) - 1));
+        int b = base[x];
+        System.arraycopy(child, b + p + 1, child, b + p, k - p - 1);
+        bitmap[x] &= ~(1 << j);
+        if (k == 1) {
+            freeBlock(b, 0);
+            base[x] = NONE;
+        } else if (((k - 1) & (k - 2)) == 0) {
+            // the children left fit in a block half as large: move them there
+            int c = allocateBlock(sizeClass(k - 1));
+            System.arraycopy(child, b, child, c, k - 1);
+            freeBlock(b, sizeClass(k));
+            base[x] = c;
+        }
+    }
+
+    // node of string s, or NONE
+    private int node(String s) {
+        int x = ROOT;
+        for (int d = 0; d < s.length() && x != NONE; d++) {
+            x = next(x, s.charAt(d));
+        }
+        return x;
+    }
+
+    // returns true if trie contains string s
+    public boolean contains(String s) {
+        int x = node(s);
+        return x != NONE && count[x] > 0;
+    }
+
+    // method to count the number of occurrences of a word
+    public int count(String s) {
+        int x = node(s);
+        return x == NONE ? 0 : count[x];
+    }
+
+    // insert string s in trie
+    public void insert(String s) {
+        int x = ROOT;
+        for (int d = 0; d < s.length(); d++) {
+            char c = s.charAt(d);
+            int j = c - 'a';
+            if (j < 0 || j >= R) {
+                throw new IllegalArgumentException("character " + c + " of " + s + " is not in a..z");
+            }
+            int y = next(x, c);
+            if (y == NONE) {
+                y = allocateNode();
+                addChild(x, j, y);
+            }
+            x = y;
+        }
+        if (count[x] == 0) {
+            N++;
+        }
+        count[x]++;
+    }
+
+    // delete one occurrence of string s from trie; when its last occurrence is deleted
+    // the word is removed, together with the nodes that no longer lead to any word
+    public void delete(String s) {
+        int[] path = new int[s.length() + 1];  // path[d] = node of the first d characters of s
+        path[0] = ROOT;
+        for (int d = 0; d < s.length(); d++) {
+            path[d + 1] = next(path[d], s.charAt(d));
+            if (path[d + 1] == NONE) {
+                return;
+            }
+        }
+        int x = path[s.length()];
+        if (count[x] == 0) {
+            return;
+        }
+        count[x]--;
+        if (count[x] > 0) {
+            return;
+        }
+        N--;
+        for (int d = s.length(); d > 0 && count[path[d]] == 0 && bitmap[path[d]] == 0; d--) {
+            removeChild(path[d - 1], s.charAt(d - 1) - 'a');
+            freeNode(path[d]);
+        }
+    }
+
+    // collect all the words stored in the trie
+    public Iterable<String> words() {
+        Queue<String> q = new Queue<String>(N); // stores the words of the trie
+        collect(ROOT, new StringBuilder(), q);
+        return q;
+    }
+
+    // store the words stored in the subtree of x, whose string is pre
+    private void collect(int x, StringBuilder pre, Queue<String> q) {
+        if (count[x] > 0) {
+            q.put(pre.toString()); // pre is a word stored in the trie
+        }
+        int bits = bitmap[x];
+        for (int p = 0; bits != 0; p++, bits &= bits - 1) {
+            pre.append((char) ('a' + Integer.numberOfTrailingZeros(bits)));
+            collect(child[base[x] + p], pre, q);
+            pre.setLength(pre.length() - 1);
+        }
+    }
+
+    // store the words that match s stored in the subtree of x, whose string is pre
+    private void collect(int x, StringBuilder pre, String s, Queue<String> q) {
+        int d = pre.length();  // number of characters in pre
+        if (d == s.length()) {  // end of s
+            if (count[x] > 0) {
+                q.put(pre.toString());
+            }
+            return;
+        }
+        char c = s.charAt(d);   // next character
+        if (c == '.' || c == '?') { // wildcard: follow every child
+            int bits = bitmap[x];
+            for (int p = 0; bits != 0; p++, bits &= bits - 1) {
+                pre.append((char) ('a' + Integer.numberOfTrailingZeros(bits)));
+                collect(child[base[x] + p], pre, s, q);
+                pre.setLength(d);
+            }
+        } else {
+            int y = next(x, c);
+            if (y != NONE) {
+                pre.append(c);
+                collect(y, pre, s, q);
+                pre.setLength(d);
+            }
+        }
+    }
+
+    // collect all the words with prefix s stored in the trie
+    public Iterable<String> wordsWithPrefix(String s) {
+        Queue<String> q = new Queue<String>(N);
+        int x = node(s);
+        if (x != NONE) {
+            collect(x, new StringBuilder(s), q);
+        }
+        return q;
+    }
+
+    // collect all the words that match s stored in the trie
+    public Iterable<String> wordsThatMatch(String s) {
+        Queue<String> q = new Queue<String>(N);
+        collect(ROOT, new StringBuilder(), s, q);
+        return q;
+    }
+
+    // find the word stored in the trie that is the longest prefix of s
+    public String longestPrefixOf(String s) {
+        int length = 0; // length of longest prefix
+        int x = ROOT;
+        for (int i = 0; i < s.length() && x != NONE; i++) {
+            x = next(x, s.charAt(i));
+            if (x != NONE && count[x] > 0) { // x is a word
+                length = i + 1;
+            }
+        }
+        return s.substring(0, length);
+    }
+
+    // return the most frequent word
+    public Item mostFrequent() {
+        Item I = new Item();
+        mostFrequent(ROOT, new StringBuilder(), I);
+        return I;
+    }
+
+    private void mostFrequent(int x, StringBuilder pre, Item I) {
+        if (count[x] > I.count) {
+            I.s = pre.toString();
+            I.count = count[x];
+        }
+        int bits = bitmap[x];
+        for (int p = 0; bits != 0; p++, bits &= bits - 1) {
+            pre.append((char) ('a' + Integer.numberOfTrailingZeros(bits)));
+            mostFrequent(child[base[x] + p], pre, I);
+            pre.setLength(pre.length() - 1);
+        }
+    }
+
+    // return number of words stored in the trie
+    public int size() {
+        return N;
+    }
+
+    // bytes taken by the arrays of the trie
+    public long memoryBytes() {
+        return 4L * (bitmap.length + base.length + count.length + child.length);
+    }
+
+    // print all the words stored in the trie
+    public void printWords(Iterable<String> words) {
+        for (String s : words) {
+            System.out.println(s + " " + count(s));
+        }
+    }
+
+    public static void main(String[] args) {
+        System.out.println("Test Compact String Trie");
+
+        CompactStringTrie T = new CompactStringTrie();
+
+        In.init();
+        long startTime = System.currentTimeMillis();
+        while (!In.empty()) {
+            String s = In.getString();
+            T.insert(s);
+        }
+        System.out.println("" + T.size() + " words");
+        long endTime = System.currentTimeMillis();
+        long totalTime = endTime - startTime;
+        System.out.println("construction time = " + totalTime);
+        System.out.println("memory KB = " + (double) (Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory()) / 1024);
+        System.out.println("trie arrays KB = " + (double) T.memoryBytes() / 1024);
+        //T.printWords(T.words());
+
+        String s = "astonished";
+        System.out.println("contains " + s + " = " + T.count(s));
+
+        s = "carol";
+        System.out.println("contains " + s + " = " + T.count(s));
+
+        s = "pigeon";
+        System.out.println("contains " + s + " = " + T.count(s));
+
+        s = "wondered";
+        System.out.println("contains " + s + " = " + T.count(s));
+
+        s = "governmental";
+        System.out.println("longest prefix of " + s + " = " + T.longestPrefixOf(s));
+
+        s = "caro";
+        System.out.println("words with prefix " + s + " : ");
+        T.printWords(T.wordsWithPrefix(s));
+
+        s = "sc????e";
+        System.out.println("words that match " + s + " : ");
+        T.printWords(T.wordsThatMatch(s));
+
+        Item I = T.mostFrequent();
+        System.out.println("most frequent word = " + I.s + " " + I.count);
+
+        T.delete("carol");
+        T.delete("scuffle");
+        s = "sc????e";
+        System.out.println("words that match " + s + " after deleting scuffle : ");
+        T.printWords(T.wordsThatMatch(s));
+    }
+}
@@ -0,0 +1,360 @@
+import java.io.*;
+
+// radix trie (PATRICIA trie): a trie in which every chain of nodes that have a single child
+// and end no word is merged into one edge, labelled with the whole substring
+//
+// a search therefore makes one step per branching point instead of one per character,
+// and a word whose ending is not shared with other words takes a single node
+public class RadixStringTrie {
+
+    private int N = 0;      // number of words in trie
+    private int nodes = 1;  // number of nodes, the root included
+    private Node root = new Node("");   // root of trie
+
+    /* trie node */
+    private static class Node {
+        private String label;   // characters of the edge from the parent to this node
+        private int count;      // number of occurences of the word ending at this node, 0 if none
+        private Node[] next = EMPTY;    // children, sorted by the first character of their label
+
+        Node(String label) {
+            this.label = label;
+        }
+    }
+
+    private static final Node[] EMPTY = new Node[0];
+
+    /* auxiliary class: stores a word s and its number of occurrences */
+    private static class Item {
+         private String s;
+         private int count;
+    }
+
+    // position in x.next of the child whose label starts with c, or -(insertion point) - 1
+    private static int find(Node x, char c) {
+        int lo = 0;
+        int hi = x.next.length - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            char m = x.next[mid].label.charAt(0);
+            if (m < c) {
+                lo = mid + 1;
+            } else if (m > c) {
+                hi = mid - 1;
+            } else {
+                return mid;
+            }
+        }
+        return -(lo + 1);
+    }
+
+    // child of x whose label starts with c, or null
+    private static Node child(Node x, char c) {
+        int i = find(x, c);
+        return i < 0 ? null : x.next[i];
+    }
+
+    // node at which string s ends, or null
+    private Node node(String s) {
+        Node x = root;
+        int d = 0;
+        while (d < s.length()) {
+            x = child(x, s.charAt(d));
+            if (x == null || !s.startsWith(x.label, d)) {
+                return null;
+            }
+            d += x.label.length();
+        }
+        return x;
+    }
+
+    // returns true if trie contains string s
+    public boolean contains(String s) {
+        Node x = node(s);
+        return x != null && x.count > 0;
+    }
+
+    // method to count the number of occurrences of a word
+    public int count(String s) {
+        Node x = node(s);
+        return x == null ? 0 : x.count;
+    }
+
+    // insert string s in trie
+    public void insert(String s) {
+        Node x = root;
+        int d = 0;
+        while (d < s.length()) {
+            int i = find(x, s.charAt(d));
+            if (i < 0) {
+                // no edge starts with the next character: the rest of s becomes a new leaf
+                i = -i - 1;
+                Node[] next = new Node[x.next.length + 1];
+                System.arraycopy(x.next, 0, next, 0, i);
+                System.arraycopy(x.next, i, next, i + 1, x.next.length - i);
+                next[i] = new Node(s.substring(d));
+                x.next = next;
+                nodes++;
+                x = next[i];
+                break;
+            }
+            Node y = x.next[i];
+            int k = 1;  // length of the common prefix of the label of y and the rest of s
+            while (k < y.label.length() && d + k < s.length() && y.label.charAt(k) == s.charAt(d + k)) {
+                k++;
+            }
+            if (k < y.label.length()) {
+                // s leaves the edge to y halfway: split the edge at that point
+                Node mid = new Node(y.label.substring(0, k));
+                y.label = y.label.substring(k);
+                mid.next = new Node[] { y };
+                x.next[i] = mid;
+                nodes++;
+                y = mid;
+            }
+            x = y;
+            d += k;
+        }
+        if (x.count == 0) {
+            N++;
+        }
+        x.count++;
+    }
+
+    // delete one occurrence of string s from trie; when its last occurrence is deleted the
+    // word is removed, and nodes are merged again where it was the reason for a split
+    public void delete(String s) {
+        Node parent = null;
+        Node x = root;
+        int d = 0;
+        while (d < s.length()) {
+            Node y = child(x, s.charAt(d));
+            if (y == null || !s.startsWith(y.label, d)) {
+                return;
+            }
+            parent = x;
+            x = y;
+            d += y.label.length();
+        }
+        if (x.count == 0) {
+            return;
+        }
+        x.count--;
+        if (x.count > 0) {
+            return;
+        }
+        N--;
+        if (x == root) {
+            return;
+        }
+        if (x.next.length == 0) {
+            // remove the leaf x; its parent may now be a chain node that can be merged
+            int i = find(parent, x.label.charAt(0));
+            Node[] next = new Node[parent.next.length - 1];
+            System.arraycopy(parent.next, 0, next, 0, i);
+            System.arraycopy(parent.next, i + 1, next, i, next.length - i);
+            parent.next = next.length == 0 ? EMPTY : next;
+            nodes--;
+            x = parent;
+        }
+        if (x != root && x.count == 0 && x.next.length == 1) {
+            merge(x);
+        }
+    }
+
+    // merge x with its only child
+    private void merge(Node x) {
+        Node y = x.next[0];
+        x.label = x.label + y.label;
+        x.count = y.count;
+        x.next = y.next;
+        nodes--;
+    }
+
+    // collect all the words stored in the trie
+    public Iterable<String> words() {
+        Queue<String> q = new Queue<String>(N); // stores the words of the trie
+        collect(root, "", q);
+        return q;
+    }
+
+    // store the words stored in the subtree of x, whose string is pre
+    private void collect(Node x, String pre, Queue<String> q) {
+        if (x.count > 0) {
+            q.put(pre); // pre is a word stored in the trie
+        }
+        for (Node y : x.next) {
+            collect(y, pre + y.label, q);
+        }
+    }
+
+    // store the words that match s stored in the subtree of x, whose string is pre
+    private void collect(Node x, String pre, String s, Queue<String> q) {
+        int d = pre.length();  // number of characters in pre
+        if (d == s.length()) {  // end of s
+            if (x.count > 0) {
+                q.put(pre);
+            }
+            return;
+        }
+        char c = s.charAt(d);   // next character
+        for (Node y : x.next) {
+            if (c != '.' && c != '?' && c != y.label.charAt(0)) {
+                continue;
+            }
+            if (matches(y.label, s, d)) {
+                collect(y, pre + y.label, s, q);
+            }
+        }
+    }
+
+    // does label match the characters of s from position d, '.' and '?' matching any character
+    private static boolean matches(String label, String s, int d) {
+        if (d + label.length() > s.length()) {
+            return false;
+        }
+        for (int i = 0; i < label.length(); i++) {
+            char c = s.charAt(d + i);
+            if (c != '.' && c != '?' && c != label.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // collect all the words with prefix s stored in the trie
+    public Iterable<String> wordsWithPrefix(String s) {
+        Queue<String> q = new Queue<String>(N);
+        Node x = root;
+        int d = 0;
+        String pre = "";    // string of x
+        while (d < s.length()) {
+            x = child(x, s.charAt(d));
+            if (x == null) {
+                return q;
+            }
+            if (s.startsWith(x.label, d)) {
+                d += x.label.length();
+            } else if (x.label.startsWith(s.substring(d))) {
+                d = s.length();     // s ends inside the edge to x
+            } else {
+                return q;
+            }
+            pre = pre + x.label;
+        }
+        collect(x, pre, q);
+        return q;
+    }
+
+    // collect all the words that match s stored in the trie
+    public Iterable<String> wordsThatMatch(String s) {
+        Queue<String> q = new Queue<String>(N);
+        collect(root, "", s, q);
+        return q;
+    }
+
+    // find the word stored in the trie that is the longest prefix of s
+    public String longestPrefixOf(String s) {
+        int length = 0; // length of longest prefix
+        Node x = root;
+        int d = 0;
+        while (d < s.length()) {
+            x = child(x, s.charAt(d));
+            if (x == null || !s.startsWith(x.label, d)) {
+                break;
+            }
+            d += x.label.length();
+            if (x.count > 0) { // x is a word
+                length = d;
+            }
+        }
+        return s.substring(0, length);
+    }
+
+    // return the most frequent word
+    public Item mostFrequent() {
+        Item I = new Item();
+        mostFrequent(root, "", I);
+        return I;
+    }
+
+    private void mostFrequent(Node x, String pre, Item I) {
+        if (x.count > I.count) {
+            I.s = pre;
+            I.count = x.count;
+        }
+        for (Node y : x.next) {
+            mostFrequent(y, pre + y.label, I);
+        }
+    }
+
+    // return number of words stored in the trie
+    public int size() {
+        return N;
+    }
+
+    // return number of nodes of the trie, the root included
+    public int nodes() {
+        return nodes;
+    }
+
+    // print all the words stored in the trie
+    public void printWords(Iterable<String> words) {
+        for (String s : words) {
+            System.out.println(s + " " + count(s));
+        }
+    }
+
+    public static void main(String[] args) {
+        System.out.println("Test Radix String Trie");
+
+        RadixStringTrie T = new RadixStringTrie();
+
+        In.init();
+        long startTime = System.currentTimeMillis();
+        while (!In.empty()) {
+            String s = In.getString();
+            T.insert(s);
+        }
+        System.out.println("" + T.size() + " words");
+        System.out.println("" + T.nodes() + " nodes");
+        long endTime = System.currentTimeMillis();
+        long totalTime = endTime - startTime;
+        System.out.println("construction time = " + totalTime);
+        System.out.println("memory KB = " + (double) (Runtime.getRuntime().totalMemory() - Runtime.getRuntime().freeMemory()) / 1024);
+        //T.printWords(T.words());
+
+        String s = "astonished";
+        System.out.println("contains " + s + " = " + T.count(s));
+
+        s = "carol";
+        System.out.println("contains " + s + " = " + T.count(s));
+
+        s = "pigeon";
+        System.out.println("contains " + s + " = " + T.count(s));
+
+        s = "wondered";
+        System.out.println("contains " + s + " = " + T.count(s));
+
+        s = "governmental";
+        System.out.println("longest prefix of " + s + " = " + T.longestPrefixOf(s));
+
+        s = "caro";
+        System.out.println("words with prefix " + s + " : ");
+        T.printWords(T.wordsWithPrefix(s));
+
+        s = "sc????e";
+        System.out.println("words that match " + s + " : ");
+        T.printWords(T.wordsThatMatch(s));
+
+        Item I = T.mostFrequent();
+        System.out.println("most frequent word = " + I.s + " " + I.count);
+
+        T.delete("carol");
+        T.delete("scuffle");
+        s = "sc????e";
+        System.out.println("words that match " + s + " after deleting scuffle : ");
+        T.printWords(T.wordsThatMatch(s));
+        System.out.println("" + T.nodes() + " nodes");
+    }
+}